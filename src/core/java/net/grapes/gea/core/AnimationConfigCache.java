@@ -0,0 +1,330 @@
+package net.grapes.gea.core;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+
+// Compiled form of the animation config, stored next to the JSON it was built from:
+//   header:   magic, version, source fingerprints (path, size, mtime, crc32c), body length, body crc32c
+//   strings:  count, offsets[count + 1], utf-8 blob
+//   records:  count, (key, firstFrame, frameCount) per item, then frame string indices
+// The file is read in one go on load and only trusted while every source fingerprint and the body checksum
+// match; a body that still decodes to out-of-range indices is treated as stale rather than thrown on.
+public final class AnimationConfigCache {
+    private static final int MAGIC = 0x47454143; // "GEAC"
+    private static final int VERSION = 2;
+    private static final int RECORD_BYTES = 12;
+    private static final int NULL_INDEX = -1;
+    private static final int MAX_PATH_BYTES = 1 << 16;
+
+    private AnimationConfigCache() {}
+
+    public static Map<String, List<String>> read(Path cacheFile, List<SourceFingerprint> sources) throws IOException {
+        if (!Files.isRegularFile(cacheFile)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            // Nothing is memory-mapped: a mapping can't be released explicitly, and on Windows a mapped cache
+            // couldn't be replaced by the next write() until the mapping is collected.
+            DataInputStream header = new DataInputStream(Channels.newInputStream(channel));
+            if (!matchesHeader(header, sources)) {
+                return null;
+            }
+
+            int bodyLength = header.readInt();
+            int bodyChecksum = header.readInt();
+            long bodyStart = channel.position();
+            if (channel.size() - bodyStart != bodyLength) {
+                return null;
+            }
+            ByteBuffer body = ByteBuffer.allocate(bodyLength);
+            while (body.hasRemaining()) {
+                if (channel.read(body) < 0) {
+                    throw new EOFException();
+                }
+            }
+            body.flip();
+            CRC32C crc = new CRC32C();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != bodyChecksum) {
+                return null;
+            }
+            return decodeBody(body);
+        } catch (EOFException | BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Corrupt animation config cache " + cacheFile, e);
+        }
+    }
+
+    public static void write(Path cacheFile, List<SourceFingerprint> sources, Map<String, List<String>> animations) throws IOException {
+        Path tempFile = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+        Files.write(tempFile, encode(sources, animations));
+        try {
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static byte[] encode(List<SourceFingerprint> sources, Map<String, List<String>> animations) {
+        Map<String, Integer> stringIndices = new LinkedHashMap<>();
+        List<Map.Entry<String, List<String>>> entries = new ArrayList<>(animations.size());
+        int totalFrames = 0;
+
+        for (Map.Entry<String, List<String>> entry : animations.entrySet()) {
+            if (entry.getKey() == null) {
+                continue;
+            }
+            entries.add(entry);
+            stringIndices.putIfAbsent(entry.getKey(), stringIndices.size());
+            if (entry.getValue() != null) {
+                for (String frame : entry.getValue()) {
+                    if (frame != null) {
+                        stringIndices.putIfAbsent(frame, stringIndices.size());
+                    }
+                }
+                totalFrames += entry.getValue().size();
+            }
+        }
+
+        List<byte[]> sourcePaths = new ArrayList<>(sources.size());
+        int headerBytes = 12 + 8;
+        for (SourceFingerprint source : sources) {
+            byte[] path = source.path.getBytes(StandardCharsets.UTF_8);
+            sourcePaths.add(path);
+            headerBytes += 4 + path.length + 8 + 8 + 4;
+        }
+
+        List<byte[]> utf = new ArrayList<>(stringIndices.size());
+        int blobBytes = 0;
+        for (String value : stringIndices.keySet()) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            utf.add(bytes);
+            blobBytes += bytes.length;
+        }
+
+        int size = headerBytes
+                + 4 + 4 * (utf.size() + 1) + blobBytes
+                + 4 + RECORD_BYTES * entries.size()
+                + 4 + 4 * totalFrames;
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(sources.size());
+        for (int i = 0; i < sources.size(); i++) {
+            SourceFingerprint source = sources.get(i);
+            buffer.putInt(sourcePaths.get(i).length);
+            buffer.put(sourcePaths.get(i));
+            buffer.putLong(source.size);
+            buffer.putLong(source.lastModified);
+            buffer.putInt(source.checksum);
+        }
+        int bodyStart = headerBytes;
+        buffer.putInt(size - bodyStart);
+        int checksumPosition = buffer.position();
+        buffer.putInt(0);
+
+        buffer.putInt(utf.size());
+        int offset = 0;
+        for (byte[] bytes : utf) {
+            buffer.putInt(offset);
+            offset += bytes.length;
+        }
+        buffer.putInt(offset);
+        for (byte[] bytes : utf) {
+            buffer.put(bytes);
+        }
+
+        buffer.putInt(entries.size());
+        int firstFrame = 0;
+        for (Map.Entry<String, List<String>> entry : entries) {
+            List<String> frames = entry.getValue();
+            buffer.putInt(stringIndices.get(entry.getKey()));
+            buffer.putInt(firstFrame);
+            buffer.putInt(frames != null ? frames.size() : NULL_INDEX);
+            firstFrame += frames != null ? frames.size() : 0;
+        }
+
+        buffer.putInt(totalFrames);
+        for (Map.Entry<String, List<String>> entry : entries) {
+            if (entry.getValue() != null) {
+                for (String frame : entry.getValue()) {
+                    buffer.putInt(frame != null ? stringIndices.get(frame) : NULL_INDEX);
+                }
+            }
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), bodyStart, size - bodyStart);
+        buffer.putInt(checksumPosition, (int) crc.getValue());
+        return buffer.array();
+    }
+
+    private static boolean matchesHeader(DataInputStream in, List<SourceFingerprint> sources) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            return false;
+        }
+
+        int sourceCount = in.readInt();
+        if (sourceCount != sources.size()) {
+            return false;
+        }
+        for (SourceFingerprint expected : sources) {
+            int pathLength = in.readInt();
+            if (pathLength < 0 || pathLength > MAX_PATH_BYTES) {
+                return false;
+            }
+            byte[] path = new byte[pathLength];
+            in.readFully(path);
+            SourceFingerprint cached = new SourceFingerprint(new String(path, StandardCharsets.UTF_8),
+                    in.readLong(), in.readLong(), in.readInt());
+            if (!cached.equals(expected)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static Map<String, List<String>> decodeBody(ByteBuffer buffer) {
+        int stringCount = buffer.getInt(0);
+        if (stringCount < 0 || 4L * (stringCount + 1) > buffer.limit()) {
+            return null;
+        }
+        int offsetsStart = 4;
+        int blobStart = offsetsStart + 4 * (stringCount + 1);
+        int blobLength = buffer.getInt(offsetsStart + 4 * stringCount);
+        if (blobLength < 0 || (long) blobStart + blobLength + 4 > buffer.limit()) {
+            return null;
+        }
+        String[] strings = new String[stringCount];
+        byte[] scratch = new byte[0];
+        for (int i = 0; i < stringCount; i++) {
+            int start = buffer.getInt(offsetsStart + 4 * i);
+            int length = buffer.getInt(offsetsStart + 4 * (i + 1)) - start;
+            if (start < 0 || length < 0 || (long) start + length > blobLength) {
+                return null;
+            }
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(blobStart + start, scratch, 0, length);
+            strings[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        int recordCount = buffer.getInt(blobStart + blobLength);
+        if (recordCount < 0 || recordCount > buffer.limit() / RECORD_BYTES) {
+            return null;
+        }
+        int recordsStart = blobStart + blobLength + 4;
+        int framesStart = recordsStart + RECORD_BYTES * recordCount + 4;
+        int totalFrames = buffer.getInt(framesStart - 4);
+        if (totalFrames < 0 || framesStart + 4L * totalFrames > buffer.limit()) {
+            return null;
+        }
+
+        Map<String, List<String>> animations = new HashMap<>(Math.max(16, (int) (recordCount / 0.75f) + 1));
+        for (int i = 0; i < recordCount; i++) {
+            int record = recordsStart + RECORD_BYTES * i;
+            int keyIndex = buffer.getInt(record);
+            int firstFrame = buffer.getInt(record + 4);
+            int frameCount = buffer.getInt(record + 8);
+            if (keyIndex < 0 || keyIndex >= stringCount) {
+                return null;
+            }
+            String key = strings[keyIndex];
+
+            if (frameCount == NULL_INDEX) {
+                animations.put(key, null);
+                continue;
+            }
+            if (frameCount < 0 || firstFrame < 0 || (long) firstFrame + frameCount > totalFrames) {
+                return null;
+            }
+
+            String[] frames = new String[frameCount];
+            for (int frame = 0; frame < frameCount; frame++) {
+                int index = buffer.getInt(framesStart + 4 * (firstFrame + frame));
+                if (index != NULL_INDEX && (index < 0 || index >= stringCount)) {
+                    return null;
+                }
+                frames[frame] = index == NULL_INDEX ? null : strings[index];
+            }
+            animations.put(key, new ArrayList<>(Arrays.asList(frames)));
+        }
+
+        return animations;
+    }
+
+    public static final class SourceFingerprint {
+        public final String path;
+        public final long size;
+        public final long lastModified;
+        public final int checksum;
+
+        public SourceFingerprint(String path, long size, long lastModified, int checksum) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.checksum = checksum;
+        }
+
+        // Streamed rather than mapped, so the user's editor and the config watcher can replace the file
+        // right away on Windows.
+        public static SourceFingerprint of(Path file) throws IOException {
+            CRC32C crc = new CRC32C();
+            long size = 0;
+            try (InputStream in = new CheckedInputStream(Files.newInputStream(file), crc)) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    size += read;
+                }
+            }
+            return new SourceFingerprint(file.toAbsolutePath().normalize().toString(), size,
+                    Files.getLastModifiedTime(file).toMillis(), (int) crc.getValue());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SourceFingerprint other)) {
+                return false;
+            }
+            return size == other.size && lastModified == other.lastModified
+                    && checksum == other.checksum && path.equals(other.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, size, lastModified, checksum);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s{size=%d, mtime=%d, crc=%08x}", path, size, lastModified, checksum);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package net.grapes.gea.core;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+// Parses several config files in parallel and merges them in the order given: a definition in a later
+// file replaces the same item from an earlier one (reported as a conflict). A file that fails to parse
+// is reported and contributes what it defined in the previous result, if one is given, or nothing; the
+// other files are still merged. That way a reload that catches a file half-written keeps its items.
+public final class AnimationConfigLoader {
+
+    private AnimationConfigLoader() {}
+
+    public static Result load(List<Path> files, Executor executor) {
+        return load(files, executor, null);
+    }
+
+    public static Result load(List<Path> files, Executor executor, Result previous) {
+        List<CompletableFuture<FileResult>> futures = new ArrayList<>(files.size());
+        for (Path file : files) {
+            futures.add(CompletableFuture.supplyAsync(() -> parseFile(file), executor));
+        }
+
+        List<FileResult> results = new ArrayList<>(files.size());
+        for (CompletableFuture<FileResult> future : futures) {
+            results.add(future.join());
+        }
+        return merge(results, previous);
+    }
+
+    static FileResult parseFile(Path file) {
+        long startNanos = System.nanoTime();
+        List<Conflict> duplicates = new ArrayList<>();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Map<String, List<String>> animations = AnimationConfigParser.parseStreaming(reader,
+                    (itemId, previous) -> duplicates.add(new Conflict(itemId, file, file)));
+            return new FileResult(file, animations, null, duplicates, System.nanoTime() - startNanos);
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            return new FileResult(file, null, e.getMessage() != null ? e.getMessage() : e.toString(),
+                    duplicates, System.nanoTime() - startNanos);
+        }
+    }
+
+    static Result merge(List<FileResult> results, Result previousResult) {
+        int totalEntries = 0;
+        for (FileResult result : results) {
+            if (result.animations != null) {
+                totalEntries += result.animations.size();
+            }
+        }
+
+        Map<String, List<String>> merged = new HashMap<>(Math.max(16, (int) (totalEntries / 0.75f) + 1));
+        Map<String, Path> definedIn = new HashMap<>();
+        Map<Path, Map<String, List<String>>> fileAnimations = new HashMap<>();
+        List<Conflict> conflicts = new ArrayList<>();
+        List<FileError> errors = new ArrayList<>();
+
+        for (FileResult result : results) {
+            conflicts.addAll(result.duplicates);
+            Map<String, List<String>> animations = result.animations;
+            if (result.error != null) {
+                animations = previousResult != null ? previousResult.fileAnimations.get(result.file) : null;
+                errors.add(new FileError(result.file, result.error, animations != null));
+                if (animations == null) {
+                    continue;
+                }
+            }
+
+            fileAnimations.put(result.file, animations);
+            for (Map.Entry<String, List<String>> entry : animations.entrySet()) {
+                merged.put(entry.getKey(), entry.getValue());
+                Path previous = definedIn.put(entry.getKey(), result.file);
+                if (previous != null && !previous.equals(result.file)) {
+                    conflicts.add(new Conflict(entry.getKey(), previous, result.file));
+                }
+            }
+        }
+
+        return new Result(merged, Collections.unmodifiableList(results), fileAnimations, errors, conflicts);
+    }
+
+    public static final class Result {
+        public final Map<String, List<String>> animations;
+        public final List<FileResult> files;
+        public final List<FileError> errors;
+        public final List<Conflict> conflicts;
+        // What each file contributed, including definitions kept from the previous result.
+        private final Map<Path, Map<String, List<String>>> fileAnimations;
+
+        Result(Map<String, List<String>> animations, List<FileResult> files, Map<Path, Map<String, List<String>>> fileAnimations,
+               List<FileError> errors, List<Conflict> conflicts) {
+            this.animations = animations;
+            this.files = files;
+            this.fileAnimations = fileAnimations;
+            this.errors = errors;
+            this.conflicts = conflicts;
+        }
+
+        // True if a file failed to parse and there were no earlier definitions to keep for it.
+        public boolean hasLostFiles() {
+            for (FileError error : errors) {
+                if (!error.keptPrevious) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    public static final class FileResult {
+        public final Path file;
+        public final Map<String, List<String>> animations;
+        public final String error;
+        public final List<Conflict> duplicates;
+        public final long parseNanos;
+
+        FileResult(Path file, Map<String, List<String>> animations, String error, List<Conflict> duplicates, long parseNanos) {
+            this.file = file;
+            this.animations = animations;
+            this.error = error;
+            this.duplicates = duplicates;
+            this.parseNanos = parseNanos;
+        }
+
+        public int getEntryCount() {
+            return animations != null ? animations.size() : 0;
+        }
+    }
+
+    public static final class FileError {
+        public final Path file;
+        public final String message;
+        public final boolean keptPrevious;
+
+        FileError(Path file, String message, boolean keptPrevious) {
+            this.file = file;
+            this.message = message;
+            this.keptPrevious = keptPrevious;
+        }
+    }
+
+    public static final class Conflict {
+        public final String itemId;
+        public final Path overriddenFile;
+        public final Path file;
+
+        Conflict(String itemId, Path overriddenFile, Path file) {
+            this.itemId = itemId;
+            this.overriddenFile = overriddenFile;
+            this.file = file;
+        }
+    }
+}
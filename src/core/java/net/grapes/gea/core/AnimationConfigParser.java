@@ -0,0 +1,85 @@
+package net.grapes.gea.core;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+public final class AnimationConfigParser {
+
+    private static final Gson GSON = new Gson();
+    private static final Type ANIMATION_MAP_TYPE = new TypeToken<Map<String, List<String>>>(){}.getType();
+
+    private AnimationConfigParser() {}
+
+    public static Map<String, List<String>> parse(Reader reader) {
+        return GSON.fromJson(reader, ANIMATION_MAP_TYPE);
+    }
+
+    // Token-by-token alternative to parse(): no reflection, and entries are handed over as they're read.
+    // duplicateKeys receives keys that appear more than once (the later definition wins).
+    public static Map<String, List<String>> parseStreaming(Reader reader, BiConsumer<String, List<String>> duplicateKeys) throws IOException {
+        Map<String, List<String>> animations = new LinkedHashMap<>();
+        JsonReader json = new JsonReader(reader);
+        // Same leniency as Gson.fromJson, so hand-written configs with comments, trailing commas, single quotes
+        // or unquoted names keep loading.
+        json.setLenient(true);
+
+        try {
+            json.peek();
+        } catch (EOFException e) {
+            // Empty file, same as Gson's fromJson returning null.
+            return animations;
+        }
+
+        json.beginObject();
+        while (json.hasNext()) {
+            String itemId = json.nextName();
+            List<String> frames = readFrames(json);
+            List<String> previous = animations.put(itemId, frames);
+            if (previous != null && duplicateKeys != null) {
+                duplicateKeys.accept(itemId, previous);
+            }
+        }
+        json.endObject();
+
+        if (json.peek() != JsonToken.END_DOCUMENT) {
+            throw new IOException("Unexpected content after the top-level object at " + json.getPath());
+        }
+        return animations;
+    }
+
+    private static List<String> readFrames(JsonReader json) throws IOException {
+        if (json.peek() == JsonToken.NULL) {
+            json.nextNull();
+            return null;
+        }
+
+        List<String> frames = new ArrayList<>();
+        json.beginArray();
+        while (json.hasNext()) {
+            if (json.peek() == JsonToken.NULL) {
+                json.nextNull();
+                frames.add(null);
+            } else {
+                frames.add(json.nextString());
+            }
+        }
+        json.endArray();
+        return frames;
+    }
+
+    public static String toJson(Map<String, List<String>> animations) {
+        return GSON.toJson(animations);
+    }
+}
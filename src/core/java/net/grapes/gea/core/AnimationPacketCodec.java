@@ -0,0 +1,133 @@
+package net.grapes.gea.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.DecoderException;
+import io.netty.handler.codec.EncoderException;
+
+import java.nio.charset.StandardCharsets;
+
+// Strings match FriendlyByteBuf's wire format (VarInt-prefixed UTF-8).
+public final class AnimationPacketCodec {
+    public static final int MAX_STRING_LENGTH = 32767;
+
+    public interface Factory<T> {
+        T create(int playerId, String itemId, int variant, int useDuration, boolean isEating, int startTick, int sendTick);
+    }
+
+    private AnimationPacketCodec() {}
+
+    public static void encode(ByteBuf buf, int playerId, String itemId, int variant, int useDuration, boolean isEating, int startTick, int sendTick) {
+        buf.writeInt(playerId);
+        writeUtf(buf, itemId != null ? itemId : "");
+        writeVarInt(buf, variant);
+        buf.writeInt(useDuration);
+        buf.writeBoolean(isEating);
+        buf.writeInt(startTick);
+        buf.writeInt(sendTick);
+    }
+
+    public static <T> T decode(ByteBuf buf, Factory<T> factory) {
+        int playerId = buf.readInt();
+        String itemId = readUtf(buf);
+        int variant = readVarInt(buf);
+        int useDuration = buf.readInt();
+        boolean isEating = buf.readBoolean();
+        int startTick = buf.readInt();
+        int sendTick = buf.readInt();
+
+        return factory.create(playerId, itemId.isEmpty() ? null : itemId, variant, useDuration, isEating, startTick, sendTick);
+    }
+
+    // Size of an encoded packet without encoding it, for accounting.
+    public static int encodedSize(String itemId, int variant) {
+        int length = itemId != null ? utf8Length(itemId) : 0;
+        return 4 + varIntSize(length) + length + varIntSize(variant) + 4 + 1 + 4 + 4;
+    }
+
+    public static int varIntSize(int value) {
+        int size = 1;
+        while ((value & -128) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    public static void writeVarInt(ByteBuf buf, int value) {
+        while ((value & -128) != 0) {
+            buf.writeByte(value & 127 | 128);
+            value >>>= 7;
+        }
+        buf.writeByte(value);
+    }
+
+    public static int readVarInt(ByteBuf buf) {
+        int value = 0;
+        int position = 0;
+        byte current;
+
+        do {
+            current = buf.readByte();
+            value |= (current & 127) << position++ * 7;
+            if (position > 5) {
+                throw new DecoderException("VarInt too big");
+            }
+        } while ((current & 128) == 128);
+
+        return value;
+    }
+
+    public static void writeUtf(ByteBuf buf, String value) {
+        if (value.length() > MAX_STRING_LENGTH) {
+            throw new EncoderException("String too big (was " + value.length() + " characters, max " + MAX_STRING_LENGTH + ")");
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int maxBytes = MAX_STRING_LENGTH * 3;
+        if (bytes.length > maxBytes) {
+            throw new EncoderException("String too big (was " + bytes.length + " bytes encoded, max " + maxBytes + ")");
+        }
+
+        writeVarInt(buf, bytes.length);
+        buf.writeBytes(bytes);
+    }
+
+    public static String readUtf(ByteBuf buf) {
+        int maxBytes = MAX_STRING_LENGTH * 3;
+        int length = readVarInt(buf);
+
+        if (length > maxBytes) {
+            throw new DecoderException("The received encoded string buffer length is longer than maximum allowed (" + length + " > " + maxBytes + ")");
+        }
+        if (length < 0) {
+            throw new DecoderException("The received encoded string buffer length is less than zero! Weird string!");
+        }
+
+        String value = buf.toString(buf.readerIndex(), length, StandardCharsets.UTF_8);
+        buf.readerIndex(buf.readerIndex() + length);
+
+        if (value.length() > MAX_STRING_LENGTH) {
+            throw new DecoderException("The received string length is longer than maximum allowed (" + value.length() + " > " + MAX_STRING_LENGTH + ")");
+        }
+
+        return value;
+    }
+}
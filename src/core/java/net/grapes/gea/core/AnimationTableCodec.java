@@ -0,0 +1,168 @@
+package net.grapes.gea.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+// Deflated string table followed by (item, frames...) records of string table indices.
+// Entries are written in key order so the same table always produces the same bytes and hash.
+public final class AnimationTableCodec {
+    private static final int MAGIC = 0x47454154; // "GEAT"
+    private static final int VERSION = 1;
+    private static final int MAX_STRINGS = 1 << 20;
+
+    private AnimationTableCodec() {}
+
+    public static byte[] encode(Map<String, List<String>> animations) throws IOException {
+        Map<String, List<String>> sorted = new TreeMap<>();
+        for (Map.Entry<String, List<String>> entry : animations.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                List<String> frames = new ArrayList<>(entry.getValue());
+                frames.removeIf(frame -> frame == null);
+                sorted.put(entry.getKey(), frames);
+            }
+        }
+
+        Map<String, Integer> stringIndices = new LinkedHashMap<>();
+
+        for (Map.Entry<String, List<String>> entry : sorted.entrySet()) {
+            stringIndices.putIfAbsent(entry.getKey(), stringIndices.size());
+            for (String frame : entry.getValue()) {
+                stringIndices.putIfAbsent(frame, stringIndices.size());
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+
+            writeVarInt(out, stringIndices.size());
+            for (String value : stringIndices.keySet()) {
+                byte[] utf = value.getBytes(StandardCharsets.UTF_8);
+                writeVarInt(out, utf.length);
+                out.write(utf);
+            }
+
+            writeVarInt(out, sorted.size());
+            for (Map.Entry<String, List<String>> entry : sorted.entrySet()) {
+                writeVarInt(out, stringIndices.get(entry.getKey()));
+                writeVarInt(out, entry.getValue().size());
+                for (String frame : entry.getValue()) {
+                    writeVarInt(out, stringIndices.get(frame));
+                }
+            }
+        }
+
+        return bytes.toByteArray();
+    }
+
+    public static Map<String, List<String>> decode(byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(data)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a GEA animation table");
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported animation table version " + version);
+            }
+
+            int stringCount = readVarInt(in);
+            if (stringCount < 0 || stringCount > MAX_STRINGS) {
+                throw new IOException("Invalid string table size " + stringCount);
+            }
+
+            String[] strings = new String[stringCount];
+            for (int i = 0; i < stringCount; i++) {
+                int length = readVarInt(in);
+                if (length < 0 || length > AnimationPacketCodec.MAX_STRING_LENGTH * 3) {
+                    throw new IOException("Invalid string length " + length);
+                }
+                byte[] utf = new byte[length];
+                in.readFully(utf);
+                strings[i] = new String(utf, StandardCharsets.UTF_8);
+            }
+
+            int entryCount = readVarInt(in);
+            if (entryCount < 0 || entryCount > stringCount) {
+                throw new IOException("Invalid entry count " + entryCount);
+            }
+
+            Map<String, List<String>> animations = new HashMap<>(entryCount * 2);
+            for (int i = 0; i < entryCount; i++) {
+                String itemId = string(strings, readVarInt(in));
+                int frameCount = readVarInt(in);
+                if (frameCount < 0 || frameCount > stringCount) {
+                    throw new IOException("Invalid frame count " + frameCount + " for " + itemId);
+                }
+
+                List<String> frames = new ArrayList<>(frameCount);
+                for (int frame = 0; frame < frameCount; frame++) {
+                    frames.add(string(strings, readVarInt(in)));
+                }
+                animations.put(itemId, Collections.unmodifiableList(frames));
+            }
+
+            return animations;
+        }
+    }
+
+    public static String hash(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            StringBuilder hex = new StringBuilder(32);
+            for (int i = 0; i < 16; i++) {
+                hex.append(Character.forDigit((digest[i] >> 4) & 0xF, 16));
+                hex.append(Character.forDigit(digest[i] & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String string(String[] strings, int index) throws IOException {
+        if (index < 0 || index >= strings.length) {
+            throw new IOException("String index out of range: " + index);
+        }
+        return strings[index];
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & -128) != 0) {
+            out.writeByte(value & 127 | 128);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        int position = 0;
+        byte current;
+
+        do {
+            current = in.readByte();
+            value |= (current & 127) << position++ * 7;
+            if (position > 5) {
+                throw new IOException("VarInt too big");
+            }
+        } while ((current & 128) == 128);
+
+        return value;
+    }
+}
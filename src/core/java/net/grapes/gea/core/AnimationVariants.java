@@ -0,0 +1,308 @@
+package net.grapes.gea.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.regex.Pattern;
+
+// Animation keys are either a plain item id or a variant "namespace:item{path.to.tag=value,other=value}" that
+// applies when every NBT path holds the given value. Each item's variants compile into a decision tree that
+// reads each path at most once per lookup. Variant ids index the table: 0 is the plain key, then the item's
+// variant keys in sorted order, so a server and client using the same table agree on them.
+public final class AnimationVariants {
+    public static final int BASE_VARIANT = 0;
+    public static final AnimationVariants EMPTY = new AnimationVariants(new HashMap<>());
+
+    private static final Pattern NUMBER = Pattern.compile("[-+]?(\\d+\\.?\\d*|\\.\\d+)([eE][-+]?\\d+)?[bBsSlLfFdD]?");
+
+    // Reads the value at an NBT path from a root tag, in the form canonicalValue() gives config values,
+    // or returns null when the path doesn't exist. The root may be null for stacks without a tag.
+    public interface TagReader<T> {
+        String read(T root, String[] path);
+    }
+
+    private final Map<String, ItemVariants> items;
+
+    private AnimationVariants(Map<String, ItemVariants> items) {
+        this.items = items;
+    }
+
+    // Invalid variant keys are reported and ignored; their item's other keys still work.
+    public static AnimationVariants compile(Map<String, List<String>> animations, BiConsumer<String, String> invalidKeys) {
+        Map<String, String> baseKeys = new HashMap<>();
+        Map<String, TreeMap<String, Map<String, String>>> variantKeys = new HashMap<>();
+
+        for (String key : animations.keySet()) {
+            if (!isVariantKey(key)) {
+                baseKeys.put(key, key);
+                continue;
+            }
+            try {
+                Map<String, String> conditions = parseConditions(key);
+                variantKeys.computeIfAbsent(baseItemId(key), k -> new TreeMap<>()).put(key, conditions);
+            } catch (IllegalArgumentException e) {
+                invalidKeys.accept(key, e.getMessage());
+            }
+        }
+
+        Map<String, ItemVariants> items = new HashMap<>();
+        for (String itemId : baseKeys.keySet()) {
+            items.put(itemId, new ItemVariants(new String[]{itemId}, null));
+        }
+        for (Map.Entry<String, TreeMap<String, Map<String, String>>> entry : variantKeys.entrySet()) {
+            String itemId = entry.getKey();
+            String[] keys = new String[entry.getValue().size() + 1];
+            keys[BASE_VARIANT] = baseKeys.get(itemId);
+
+            List<Rule> rules = new ArrayList<>();
+            int variant = 1;
+            for (Map.Entry<String, Map<String, String>> variantEntry : entry.getValue().entrySet()) {
+                keys[variant] = variantEntry.getKey();
+                rules.add(new Rule(variant, variantEntry.getValue()));
+                variant++;
+            }
+            items.put(itemId, new ItemVariants(keys, build(rules)));
+        }
+        return new AnimationVariants(items);
+    }
+
+    public static boolean isVariantKey(String key) {
+        return key.indexOf('{') >= 0;
+    }
+
+    public static String baseItemId(String key) {
+        int brace = key.indexOf('{');
+        return brace >= 0 ? key.substring(0, brace) : key;
+    }
+
+    // True if the item has a plain or variant animation.
+    public boolean hasAnimation(String itemId) {
+        return items.containsKey(itemId);
+    }
+
+    public boolean hasVariants(String itemId) {
+        ItemVariants item = items.get(itemId);
+        return item != null && item.tree != null;
+    }
+
+    public int variantCount(String itemId) {
+        ItemVariants item = items.get(itemId);
+        return item != null ? item.keys.length - 1 : 0;
+    }
+
+    // The animation table key for a variant, or null when the item has no such variant (or no plain animation
+    // for BASE_VARIANT).
+    public String animationKey(String itemId, int variant) {
+        ItemVariants item = items.get(itemId);
+        if (item == null || variant < 0 || variant >= item.keys.length) {
+            return null;
+        }
+        return item.keys[variant];
+    }
+
+    // The most specific matching variant wins; between equally specific ones, the first in key order.
+    // Returns BASE_VARIANT when nothing matches.
+    public <T> int resolve(String itemId, T root, TagReader<T> reader) {
+        ItemVariants item = items.get(itemId);
+        if (item == null || item.tree == null) {
+            return BASE_VARIANT;
+        }
+
+        Node node = item.tree;
+        while (node.path != null) {
+            String value = reader.read(root, node.path);
+            Node next = value != null ? node.branches.get(value) : null;
+            node = next != null ? next : node.otherwise;
+        }
+        return node.variant;
+    }
+
+    // Config values and tag values both go through this so 1, 1b and 1.0d all match a byte tag holding 1.
+    // Quoted values are taken literally.
+    public static String canonicalValue(String value) {
+        if (value.length() >= 2 && (value.charAt(0) == '"' || value.charAt(0) == '\'')
+                && value.charAt(value.length() - 1) == value.charAt(0)) {
+            return value.substring(1, value.length() - 1);
+        }
+        if (value.equals("true")) {
+            return "1";
+        }
+        if (value.equals("false")) {
+            return "0";
+        }
+        if (NUMBER.matcher(value).matches()) {
+            String digits = Character.isLetter(value.charAt(value.length() - 1)) ? value.substring(0, value.length() - 1) : value;
+            return canonicalNumber(Double.parseDouble(digits));
+        }
+        return value;
+    }
+
+    public static String canonicalNumber(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Float.toString((float) value);
+    }
+
+    private static Map<String, String> parseConditions(String key) {
+        int brace = key.indexOf('{');
+        if (!key.endsWith("}") || key.indexOf('{', brace + 1) >= 0) {
+            throw new IllegalArgumentException("expected item{path=value,...}");
+        }
+        if (!ResourceLocations.isValid(key.substring(0, brace))) {
+            throw new IllegalArgumentException("invalid item id");
+        }
+
+        Map<String, String> conditions = new LinkedHashMap<>();
+        for (String condition : splitConditions(key.substring(brace + 1, key.length() - 1))) {
+            int equals = condition.indexOf('=');
+            if (equals <= 0 || equals == condition.length() - 1) {
+                throw new IllegalArgumentException("expected path=value, got '" + condition + "'");
+            }
+            String path = condition.substring(0, equals).trim();
+            for (String segment : path.split("\\.", -1)) {
+                if (segment.isEmpty()) {
+                    throw new IllegalArgumentException("empty segment in path '" + path + "'");
+                }
+            }
+            if (conditions.put(path, canonicalValue(condition.substring(equals + 1).trim())) != null) {
+                throw new IllegalArgumentException("path '" + path + "' is given twice");
+            }
+        }
+        if (conditions.isEmpty()) {
+            throw new IllegalArgumentException("no conditions");
+        }
+        return conditions;
+    }
+
+    // Commas inside quoted values don't separate conditions.
+    private static List<String> splitConditions(String body) {
+        List<String> conditions = new ArrayList<>();
+        int start = 0;
+        char quote = 0;
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == ',') {
+                conditions.add(body.substring(start, i).trim());
+                start = i + 1;
+            }
+        }
+        if (!body.isBlank()) {
+            conditions.add(body.substring(start).trim());
+        }
+        return conditions;
+    }
+
+    // Branches on the path most rules test, so common paths are read once near the root. Rules that don't test
+    // the path are copied into every branch, so each leaf sees exactly the rules consistent with the values read.
+    private static Node build(List<Rule> rules) {
+        Map<String, Integer> pathCounts = new TreeMap<>();
+        for (Rule rule : rules) {
+            for (String path : rule.remaining.keySet()) {
+                pathCounts.merge(path, 1, Integer::sum);
+            }
+        }
+        if (pathCounts.isEmpty()) {
+            return Node.leaf(best(rules));
+        }
+
+        String path = null;
+        int bestCount = 0;
+        for (Map.Entry<String, Integer> entry : pathCounts.entrySet()) {
+            if (entry.getValue() > bestCount) {
+                path = entry.getKey();
+                bestCount = entry.getValue();
+            }
+        }
+
+        List<Rule> without = new ArrayList<>();
+        Map<String, List<Rule>> byValue = new LinkedHashMap<>();
+        for (Rule rule : rules) {
+            String value = rule.remaining.get(path);
+            if (value == null) {
+                without.add(rule);
+            } else {
+                byValue.computeIfAbsent(value, v -> new ArrayList<>()).add(rule.consume(path));
+            }
+        }
+
+        Map<String, Node> branches = new HashMap<>();
+        for (Map.Entry<String, List<Rule>> entry : byValue.entrySet()) {
+            List<Rule> branchRules = entry.getValue();
+            branchRules.addAll(without);
+            branches.put(entry.getKey(), build(branchRules));
+        }
+        return new Node(path.split("\\."), branches, build(without), BASE_VARIANT);
+    }
+
+    private static int best(List<Rule> rules) {
+        Rule best = null;
+        for (Rule rule : rules) {
+            if (best == null || rule.specificity > best.specificity
+                    || rule.specificity == best.specificity && rule.variant < best.variant) {
+                best = rule;
+            }
+        }
+        return best != null ? best.variant : BASE_VARIANT;
+    }
+
+    private static final class ItemVariants {
+        final String[] keys;
+        final Node tree;
+
+        ItemVariants(String[] keys, Node tree) {
+            this.keys = keys;
+            this.tree = tree;
+        }
+    }
+
+    private static final class Rule {
+        final int variant;
+        final int specificity;
+        final Map<String, String> remaining;
+
+        Rule(int variant, Map<String, String> conditions) {
+            this(variant, conditions.size(), conditions);
+        }
+
+        private Rule(int variant, int specificity, Map<String, String> remaining) {
+            this.variant = variant;
+            this.specificity = specificity;
+            this.remaining = remaining;
+        }
+
+        Rule consume(String path) {
+            Map<String, String> rest = new LinkedHashMap<>(remaining);
+            rest.remove(path);
+            return new Rule(variant, specificity, rest);
+        }
+    }
+
+    private static final class Node {
+        final String[] path; // null for leaves
+        final Map<String, Node> branches;
+        final Node otherwise;
+        final int variant;
+
+        Node(String[] path, Map<String, Node> branches, Node otherwise, int variant) {
+            this.path = path;
+            this.branches = branches;
+            this.otherwise = otherwise;
+            this.variant = variant;
+        }
+
+        static Node leaf(int variant) {
+            return new Node(null, null, null, variant);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package net.grapes.gea.core;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+// Growable list of long samples (nanoseconds, bytes, ...) with nearest-rank percentiles.
+public final class BenchmarkSamples {
+    private static final java.lang.management.ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean ALLOCATION_SUPPORTED = THREADS instanceof com.sun.management.ThreadMXBean threads
+            && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled();
+
+    private long[] samples;
+    private int count = 0;
+    private long[] sorted = null;
+
+    public BenchmarkSamples(int initialCapacity) {
+        this.samples = new long[Math.max(16, initialCapacity)];
+    }
+
+    public void add(long value) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, samples.length * 2);
+        }
+        samples[count++] = value;
+        sorted = null;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += samples[i];
+        }
+        return sum;
+    }
+
+    public long percentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        if (sorted == null) {
+            sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * count);
+        return sorted[Math.min(count - 1, Math.max(0, rank - 1))];
+    }
+
+    public long max() {
+        return percentile(100);
+    }
+
+    // Bytes allocated so far by the current thread, or -1 when the JVM doesn't track it.
+    public static long threadAllocatedBytes() {
+        return ALLOCATION_SUPPORTED
+                ? ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId())
+                : -1;
+    }
+}
@@ -0,0 +1,117 @@
+package net.grapes.gea.core;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Multi-producer, single-consumer mailbox. Producers push with a single CAS; the consumer takes the
+// whole stack at once and only sees the newest message per key.
+public final class CoalescingMailbox<T> {
+
+    public interface Sink<T> {
+        void accept(int key, T value);
+    }
+
+    private static final class Node<T> {
+        final int key;
+        final T value;
+        Node<T> next;
+
+        Node(int key, T value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private final AtomicReference<Node<T>> head = new AtomicReference<>();
+
+    // Consumer-only scratch set of keys already delivered in the current drain.
+    private int[] seenKeys = new int[64];
+    private int[] seenStamps = new int[64];
+    private int drainStamp = 0;
+
+    private long offeredCount = 0;
+    private long coalescedCount = 0;
+
+    public void offer(int key, T value) {
+        Node<T> node = new Node<>(key, value);
+        Node<T> current;
+        do {
+            current = head.get();
+            node.next = current;
+        } while (!head.compareAndSet(current, node));
+    }
+
+    public boolean isEmpty() {
+        return head.get() == null;
+    }
+
+    public int drain(Sink<T> sink) {
+        Node<T> node = head.getAndSet(null);
+        if (node == null) {
+            return 0;
+        }
+
+        int pending = 0;
+        for (Node<T> n = node; n != null; n = n.next) {
+            pending++;
+        }
+        prepareSeenSet(pending);
+
+        int delivered = 0;
+        for (; node != null; node = node.next) {
+            if (markSeen(node.key)) {
+                sink.accept(node.key, node.value);
+                delivered++;
+            }
+        }
+
+        offeredCount += pending;
+        coalescedCount += pending - delivered;
+        return delivered;
+    }
+
+    public long getOfferedCount() {
+        return offeredCount;
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    private void prepareSeenSet(int expected) {
+        int capacity = seenKeys.length;
+        while (capacity < expected * 2) {
+            capacity <<= 1;
+        }
+        if (capacity != seenKeys.length) {
+            seenKeys = new int[capacity];
+            seenStamps = new int[capacity];
+            drainStamp = 0;
+        }
+
+        drainStamp++;
+        if (drainStamp == 0) {
+            Arrays.fill(seenStamps, 0);
+            drainStamp = 1;
+        }
+    }
+
+    private boolean markSeen(int key) {
+        int mask = seenKeys.length - 1;
+        int slot = mix(key) & mask;
+        while (seenStamps[slot] == drainStamp) {
+            if (seenKeys[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        seenStamps[slot] = drainStamp;
+        seenKeys[slot] = key;
+        return true;
+    }
+
+    static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
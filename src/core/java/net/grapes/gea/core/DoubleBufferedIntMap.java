@@ -0,0 +1,141 @@
+package net.grapes.gea.core;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+// Int-keyed table with a single writer and any number of readers. The writer mutates a private working
+// map and publish() copies it into whichever of the two read buffers is not live, then swaps it in.
+// Readers never lock or box keys. A retired buffer is only reused on the next publish, so a reader must
+// not hold a buffer across publishes; we publish at most once per client tick or frame.
+public final class DoubleBufferedIntMap<V> {
+
+    private static final class Buffer {
+        int[] keys;
+        Object[] values;
+        int size;
+
+        Buffer(int capacity) {
+            keys = new int[capacity];
+            values = new Object[capacity];
+        }
+
+        Object get(int key) {
+            Object[] vals = values;
+            int[] ks = keys;
+            int mask = ks.length - 1;
+            int slot = CoalescingMailbox.mix(key) & mask;
+            Object value;
+            while ((value = vals[slot]) != null) {
+                if (ks[slot] == key) {
+                    return value;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        void fill(Map<Integer, ?> source) {
+            int capacity = keys.length;
+            while (capacity < source.size() * 2) {
+                capacity <<= 1;
+            }
+            if (capacity != keys.length) {
+                keys = new int[capacity];
+                values = new Object[capacity];
+            } else {
+                Arrays.fill(values, null);
+            }
+
+            int mask = capacity - 1;
+            for (Map.Entry<Integer, ?> entry : source.entrySet()) {
+                int key = entry.getKey();
+                int slot = CoalescingMailbox.mix(key) & mask;
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = entry.getValue();
+            }
+            size = source.size();
+        }
+    }
+
+    private final HashMap<Integer, V> working = new HashMap<>();
+    private volatile Buffer front = new Buffer(16);
+    private Buffer spare = new Buffer(16);
+    private boolean dirty = false;
+    private long publishCount = 0;
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        return (V) front.get(key);
+    }
+
+    public int size() {
+        return front.size;
+    }
+
+    public V getWorking(int key) {
+        return working.get(key);
+    }
+
+    public boolean containsWorking(int key) {
+        return working.containsKey(key);
+    }
+
+    public int workingSize() {
+        return working.size();
+    }
+
+    public Iterator<Map.Entry<Integer, V>> workingIterator() {
+        dirty = true;
+        return working.entrySet().iterator();
+    }
+
+    public Map<Integer, V> workingView() {
+        return Collections.unmodifiableMap(working);
+    }
+
+    public V put(int key, V value) {
+        if (value == null) {
+            return remove(key);
+        }
+        dirty = true;
+        return working.put(key, value);
+    }
+
+    public V remove(int key) {
+        V removed = working.remove(key);
+        if (removed != null) {
+            dirty = true;
+        }
+        return removed;
+    }
+
+    public void clear() {
+        if (!working.isEmpty()) {
+            working.clear();
+            dirty = true;
+        }
+    }
+
+    public boolean publish() {
+        if (!dirty) {
+            return false;
+        }
+        Buffer next = spare;
+        next.fill(working);
+        spare = front;
+        front = next;
+        dirty = false;
+        publishCount++;
+        return true;
+    }
+
+    public long getPublishCount() {
+        return publishCount;
+    }
+}
@@ -0,0 +1,97 @@
+package net.grapes.gea.core;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Fixed-size ring of structured event records, stored as parallel arrays so recording never allocates.
+// Writers claim a slot with one atomic increment and publish it by writing the slot's sequence last; readers
+// skip slots that are still being written or were overwritten while they read them.
+public final class EventRing {
+
+    public interface Visitor {
+        void visit(long sequence, long nanos, int type, int a, int b, int c, Object ref, Thread thread);
+    }
+
+    private final int mask;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final AtomicLongArray published;
+    private final long[] nanos;
+    private final int[] types;
+    private final int[] argsA;
+    private final int[] argsB;
+    private final int[] argsC;
+    private final Object[] refs;
+    private final Thread[] threads;
+
+    public EventRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        this.mask = size - 1;
+        this.published = new AtomicLongArray(size);
+        this.nanos = new long[size];
+        this.types = new int[size];
+        this.argsA = new int[size];
+        this.argsB = new int[size];
+        this.argsC = new int[size];
+        this.refs = new Object[size];
+        this.threads = new Thread[size];
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1L);
+        }
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public long recorded() {
+        return nextSequence.get();
+    }
+
+    public void record(int type, int a, int b, int c, Object ref) {
+        long sequence = nextSequence.getAndIncrement();
+        int slot = (int) sequence & mask;
+
+        // Seqlock-style: unpublish, fence so the field writes can't overtake it, write, then publish.
+        published.setOpaque(slot, -1L);
+        VarHandle.storeStoreFence();
+        nanos[slot] = System.nanoTime();
+        types[slot] = type;
+        argsA[slot] = a;
+        argsB[slot] = b;
+        argsC[slot] = c;
+        refs[slot] = ref;
+        threads[slot] = Thread.currentThread();
+        published.setRelease(slot, sequence);
+    }
+
+    // Visits up to max of the most recent complete events, oldest first. Returns how many were visited.
+    public int snapshot(int max, Visitor visitor) {
+        long end = nextSequence.get();
+        long start = Math.max(0L, end - Math.min(max, capacity()));
+        int visited = 0;
+
+        for (long sequence = start; sequence < end; sequence++) {
+            int slot = (int) sequence & mask;
+            if (published.getAcquire(slot) != sequence) {
+                continue;
+            }
+
+            long eventNanos = nanos[slot];
+            int type = types[slot];
+            int a = argsA[slot];
+            int b = argsB[slot];
+            int c = argsC[slot];
+            Object ref = refs[slot];
+            Thread thread = threads[slot];
+
+            VarHandle.loadLoadFence();
+            if (published.getOpaque(slot) == sequence) {
+                visitor.visit(sequence, eventNanos, type, a, b, c, ref, thread);
+                visited++;
+            }
+        }
+
+        return visited;
+    }
+}
@@ -0,0 +1,30 @@
+package net.grapes.gea.core;
+
+public final class FrameSelector {
+
+    private FrameSelector() {}
+
+    public static int elapsedTicks(int currentTick, int startTick, boolean useServerTick) {
+        int elapsedTicks = currentTick - startTick;
+        return useServerTick ? Math.max(0, elapsedTicks) : elapsedTicks;
+    }
+
+    public static int clampElapsed(int elapsedTicks, int totalDurationTicks) {
+        return Math.max(0, Math.min(elapsedTicks, totalDurationTicks - 1));
+    }
+
+    public static int frameIndex(int elapsedTicks, int frameCount, int totalDurationTicks) {
+        if (frameCount <= 1) {
+            return 0;
+        }
+
+        if (totalDurationTicks <= 1) {
+            return frameCount - 1;
+        }
+
+        elapsedTicks = clampElapsed(elapsedTicks, totalDurationTicks);
+
+        int frameIndex = (elapsedTicks * frameCount) / totalDurationTicks;
+        return Math.min(frameIndex, frameCount - 1);
+    }
+}
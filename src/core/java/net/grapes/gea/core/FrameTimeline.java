@@ -0,0 +1,84 @@
+package net.grapes.gea.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiPredicate;
+
+// A frame list with runs of identical consecutive frames collapsed into one segment that lasts as long
+// as the run did. Segment lookup gives the same frame as indexing the original list would.
+public final class FrameTimeline {
+
+    private final List<String> source;
+    private final String[] frames;
+    private final int[] segmentEnds;
+
+    private FrameTimeline(List<String> source, String[] frames, int[] segmentEnds) {
+        this.source = source;
+        this.frames = frames;
+        this.segmentEnds = segmentEnds;
+    }
+
+    public static FrameTimeline compile(List<String> source) {
+        return compile(source, Objects::equals);
+    }
+
+    public static FrameTimeline compile(List<String> source, BiPredicate<String, String> sameFrame) {
+        List<String> frames = new ArrayList<>();
+        List<Integer> ends = new ArrayList<>();
+
+        for (int i = 0; i < source.size(); i++) {
+            String frame = source.get(i);
+            int last = frames.size() - 1;
+            if (last >= 0 && sameFrame.test(frames.get(last), frame)) {
+                ends.set(last, i + 1);
+            } else {
+                frames.add(frame);
+                ends.add(i + 1);
+            }
+        }
+
+        int[] segmentEnds = new int[ends.size()];
+        for (int i = 0; i < segmentEnds.length; i++) {
+            segmentEnds[i] = ends.get(i);
+        }
+
+        return new FrameTimeline(source, frames.toArray(new String[0]), segmentEnds);
+    }
+
+    public int segmentAt(int elapsedTicks, int totalDurationTicks) {
+        int frameIndex = FrameSelector.frameIndex(elapsedTicks, source.size(), totalDurationTicks);
+
+        int low = 0;
+        int high = segmentEnds.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (segmentEnds[mid] <= frameIndex) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public String frameAt(int elapsedTicks, int totalDurationTicks) {
+        return frames.length == 0 ? null : frames[segmentAt(elapsedTicks, totalDurationTicks)];
+    }
+
+    public String getFrame(int segment) {
+        return frames[segment];
+    }
+
+    public int getSegmentCount() {
+        return frames.length;
+    }
+
+    public int getCollapsedFrameCount() {
+        return source.size() - frames.length;
+    }
+
+    public List<String> getSource() {
+        return source;
+    }
+}
@@ -0,0 +1,55 @@
+package net.grapes.gea.core;
+
+// Smoothed round-trip time in the style of TCP's SRTT (RFC 6298): new samples move the estimate by 1/8, and
+// the mean deviation by 1/4. Samples arrive on the network thread while readers are on the client thread.
+public final class LatencyEstimator {
+    private static final int GAIN_SHIFT = 3;
+    private static final int DEVIATION_GAIN_SHIFT = 2;
+
+    private long smoothedRttNanos = -1;
+    private long rttDeviationNanos = 0;
+    private long sampleCount = 0;
+
+    public synchronized void addSample(long rttNanos) {
+        if (rttNanos < 0) {
+            return;
+        }
+
+        if (smoothedRttNanos < 0) {
+            smoothedRttNanos = rttNanos;
+            rttDeviationNanos = rttNanos / 2;
+        } else {
+            long error = rttNanos - smoothedRttNanos;
+            smoothedRttNanos += error >> GAIN_SHIFT;
+            rttDeviationNanos += (Math.abs(error) - rttDeviationNanos) >> DEVIATION_GAIN_SHIFT;
+        }
+        sampleCount++;
+    }
+
+    public synchronized boolean hasSamples() {
+        return smoothedRttNanos >= 0;
+    }
+
+    public synchronized long getSmoothedRttNanos() {
+        return smoothedRttNanos;
+    }
+
+    public synchronized long getRttDeviationNanos() {
+        return rttDeviationNanos;
+    }
+
+    public synchronized long getSampleCount() {
+        return sampleCount;
+    }
+
+    // Returns fallbackNanos until the first sample arrives.
+    public synchronized long getOneWayDelayNanos(long fallbackNanos) {
+        return smoothedRttNanos >= 0 ? smoothedRttNanos / 2 : fallbackNanos;
+    }
+
+    public synchronized void reset() {
+        smoothedRttNanos = -1;
+        rttDeviationNanos = 0;
+        sampleCount = 0;
+    }
+}
@@ -0,0 +1,107 @@
+package net.grapes.gea.core;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Outbound messages for one recipient, drained against a byte budget each tick. There is at most one message per
+// key (an eater's entity id): offering a newer one supersedes whatever was still queued for it. Draining sends the
+// lowest priority value first and, between equal priorities, the newest message, and keeps the rest for later ticks.
+// Unused budget doesn't build up, but the last message of a tick may overdraw it and the overdraft comes out of the
+// next tick's budget, so the long-run rate holds even for messages bigger than the budget. Single-threaded.
+public final class OutboundQueue<T> {
+    private static final Comparator<Entry<?>> ORDER = Comparator.<Entry<?>>comparingInt(entry -> entry.priority)
+            .thenComparing((a, b) -> Long.compare(b.sequence, a.sequence));
+
+    public interface Sender<T> {
+        // Returns false if the message was dropped instead of sent; dropped messages don't use budget.
+        boolean send(T message, int waitedTicks);
+    }
+
+    private final Map<Integer, Entry<T>> entries = new HashMap<>();
+    private long allowance = 0;
+    private long sequence = 0;
+    private long queuedBytes = 0;
+
+    // Returns true if the message replaced one still queued under the same key.
+    public boolean offer(int key, T message, int size, int priority, int tick) {
+        Entry<T> previous = entries.put(key, new Entry<>(key, message, size, priority, sequence++, tick));
+        queuedBytes += size;
+        if (previous == null) {
+            return false;
+        }
+        queuedBytes -= previous.size;
+        return true;
+    }
+
+    public boolean remove(int key) {
+        Entry<T> removed = entries.remove(key);
+        if (removed == null) {
+            return false;
+        }
+        queuedBytes -= removed.size;
+        return true;
+    }
+
+    // Returns the number of messages sent.
+    public int drain(long budget, int tick, Sender<T> sender) {
+        allowance = Math.min(allowance + budget, budget);
+        if (entries.isEmpty() || allowance <= 0) {
+            return 0;
+        }
+
+        List<Entry<T>> ordered = new ArrayList<>(entries.values());
+        ordered.sort(ORDER);
+
+        int sent = 0;
+        for (Entry<T> entry : ordered) {
+            if (allowance <= 0) {
+                break;
+            }
+            entries.remove(entry.key);
+            queuedBytes -= entry.size;
+            if (sender.send(entry.message, tick - entry.tick)) {
+                allowance -= entry.size;
+                sent++;
+            }
+        }
+        return sent;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    // Nothing queued and no overdraft to pay back, so the queue can be dropped and recreated later.
+    public boolean isIdle() {
+        return entries.isEmpty() && allowance >= 0;
+    }
+
+    public long queuedBytes() {
+        return queuedBytes;
+    }
+
+    private static final class Entry<T> {
+        final int key;
+        final T message;
+        final int size;
+        final int priority;
+        final long sequence;
+        final int tick;
+
+        Entry(int key, T message, int size, int priority, long sequence, int tick) {
+            this.key = key;
+            this.message = message;
+            this.size = size;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.tick = tick;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package net.grapes.gea.core;
+
+public final class ResourceLocations {
+
+    // Same character classes as ResourceLocation: namespace [a-z0-9_.-], path [a-z0-9_./-].
+    private static final boolean[] NAMESPACE_CHARS = new boolean[128];
+    private static final boolean[] PATH_CHARS = new boolean[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            NAMESPACE_CHARS[c] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            NAMESPACE_CHARS[c] = true;
+        }
+        NAMESPACE_CHARS['_'] = true;
+        NAMESPACE_CHARS['.'] = true;
+        NAMESPACE_CHARS['-'] = true;
+
+        System.arraycopy(NAMESPACE_CHARS, 0, PATH_CHARS, 0, NAMESPACE_CHARS.length);
+        PATH_CHARS['/'] = true;
+    }
+
+    private ResourceLocations() {}
+
+    public static boolean isValid(String location) {
+        if (location == null) {
+            return false;
+        }
+
+        int length = location.length();
+        int colonIndex = location.indexOf(':');
+        if (colonIndex <= 0 || colonIndex >= length - 1) {
+            return false;
+        }
+
+        for (int i = 0; i < colonIndex; i++) {
+            char c = location.charAt(i);
+            if (c >= 128 || !NAMESPACE_CHARS[c]) {
+                return false;
+            }
+        }
+
+        for (int i = colonIndex + 1; i < length; i++) {
+            char c = location.charAt(i);
+            if (c >= 128 || !PATH_CHARS[c]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
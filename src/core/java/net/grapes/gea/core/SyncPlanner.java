@@ -0,0 +1,88 @@
+package net.grapes.gea.core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Works out which players are in range of each eater from plain arrays copied off the game thread, so it can run
+// on any thread. Players are bucketed into a grid of maxDistance-sized columns per level, which means each eater
+// only checks the 3x3 columns around it instead of every player on the server.
+public final class SyncPlanner {
+    private static final int[] NO_RECIPIENTS = new int[0];
+
+    private SyncPlanner() {}
+
+    // Returns, for each entry of eaters (an index into the position arrays), the indices of the recipients in range,
+    // excluding the eater itself. Only the first recipientCount positions are recipients; eaters that can't receive
+    // packets (fake players) go after them. Positions on different levels are never in range.
+    public static int[][] plan(int[] levels, double[] xs, double[] ys, double[] zs, int recipientCount,
+                               int[] eaters, int eaterCount, double maxDistance) {
+        int[][] recipients = new int[eaterCount][];
+        if (eaterCount == 0) {
+            return recipients;
+        }
+
+        Map<Long, Cell> grid = new HashMap<>();
+        for (int player = 0; player < recipientCount; player++) {
+            long key = cellKey(levels[player], cell(xs[player], maxDistance), cell(zs[player], maxDistance));
+            grid.computeIfAbsent(key, k -> new Cell()).add(player);
+        }
+
+        double maxDistanceSquared = maxDistance * maxDistance;
+        int[] found = new int[recipientCount];
+        for (int i = 0; i < eaterCount; i++) {
+            int eater = eaters[i];
+            int level = levels[eater];
+            double x = xs[eater];
+            double y = ys[eater];
+            double z = zs[eater];
+            int cellX = cell(x, maxDistance);
+            int cellZ = cell(z, maxDistance);
+            int count = 0;
+
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    Cell cell = grid.get(cellKey(level, cellX + dx, cellZ + dz));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (int m = 0; m < cell.size; m++) {
+                        int player = cell.members[m];
+                        if (player == eater) {
+                            continue;
+                        }
+                        double ox = xs[player] - x;
+                        double oy = ys[player] - y;
+                        double oz = zs[player] - z;
+                        if (ox * ox + oy * oy + oz * oz <= maxDistanceSquared) {
+                            found[count++] = player;
+                        }
+                    }
+                }
+            }
+
+            recipients[i] = count == 0 ? NO_RECIPIENTS : Arrays.copyOf(found, count);
+        }
+        return recipients;
+    }
+
+    private static int cell(double coordinate, double size) {
+        return (int) Math.floor(coordinate / size);
+    }
+
+    private static long cellKey(int level, int cellX, int cellZ) {
+        return ((long) level << 48) ^ ((long) (cellX & 0xFFFFFF) << 24) ^ (cellZ & 0xFFFFFF);
+    }
+
+    private static final class Cell {
+        int[] members = new int[4];
+        int size;
+
+        void add(int player) {
+            if (size == members.length) {
+                members = Arrays.copyOf(members, size * 2);
+            }
+            members[size++] = player;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package net.grapes.gea.core;
+
+public final class TickAdjustment {
+    public static final long NANOS_PER_TICK = 50_000_000L;
+
+    private TickAdjustment() {}
+
+    // Start tick on the client's clock for an animation that was elapsedAtSend ticks old when the server sent it
+    // and has been in flight for delayNanos since. Clamped so it never starts in the future or already finished.
+    public static int compensatedStartTick(int currentClientTick, int elapsedAtSend, long delayNanos, int useDuration) {
+        long delayTicks = (delayNanos + NANOS_PER_TICK / 2) / NANOS_PER_TICK;
+        long age = Math.max(0L, (long) elapsedAtSend + delayTicks);
+        return currentClientTick - (int) Math.min(age, Math.max(useDuration, 0));
+    }
+}
@@ -0,0 +1,164 @@
+package net.grapes.gea.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Fixed-size ring of per-tick metric rows in a memory-mapped file. Appending is a handful of absolute puts into
+// the mapping, so the file never grows past its capacity and the OS writes pages back in the background.
+// Single writer; snapshots copy the rows out in order so they can be formatted elsewhere.
+public final class TickTimeline implements Closeable {
+    public static final int MAGIC = 0x47454154; // "GEAT"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 32;
+    public static final int RECORD_SIZE = 56;
+    public static final String CSV_HEADER = "epoch_millis,tick,active_eaters,broadcasts,recipients,packets,bytes,sync_ns,nearby_ns";
+
+    private static final int WRITTEN_OFFSET = 16;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private long written;
+
+    private TickTimeline(FileChannel channel, MappedByteBuffer buffer, int capacity) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+    }
+
+    public static TickTimeline create(Path file, int capacity) throws IOException {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, capacity);
+            buffer.putInt(12, RECORD_SIZE);
+            buffer.putLong(WRITTEN_OFFSET, 0);
+            return new TickTimeline(channel, buffer, capacity);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Reads a timeline file written by create(), e.g. after recording stopped.
+    public static Snapshot read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a GEA timeline file: " + file);
+            }
+            if (buffer.getInt(4) != VERSION || buffer.getInt(12) != RECORD_SIZE) {
+                throw new IOException("Unsupported GEA timeline version " + buffer.getInt(4) + " in " + file);
+            }
+
+            int capacity = buffer.getInt(8);
+            if (buffer.capacity() < HEADER_SIZE + (long) capacity * RECORD_SIZE) {
+                throw new IOException("Truncated GEA timeline file: " + file);
+            }
+            return copyRows(buffer, capacity, buffer.getLong(WRITTEN_OFFSET));
+        }
+    }
+
+    public void append(long epochMillis, int tick, int activeEaters, int broadcasts, int recipients, int packets,
+                       long bytes, long syncNanos, long nearbyNanos) {
+        int offset = HEADER_SIZE + (int) (written % capacity) * RECORD_SIZE;
+        buffer.putLong(offset, epochMillis);
+        buffer.putInt(offset + 8, tick);
+        buffer.putInt(offset + 12, activeEaters);
+        buffer.putInt(offset + 16, broadcasts);
+        buffer.putInt(offset + 20, recipients);
+        buffer.putInt(offset + 24, packets);
+        buffer.putInt(offset + 28, 0);
+        buffer.putLong(offset + 32, bytes);
+        buffer.putLong(offset + 40, syncNanos);
+        buffer.putLong(offset + 48, nearbyNanos);
+        buffer.putLong(WRITTEN_OFFSET, ++written);
+    }
+
+    public long written() {
+        return written;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public long fileSize() {
+        return HEADER_SIZE + (long) capacity * RECORD_SIZE;
+    }
+
+    // Must be called from the writer's thread.
+    public Snapshot snapshot() {
+        return copyRows(buffer, capacity, written);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            buffer.force();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static Snapshot copyRows(ByteBuffer buffer, int capacity, long written) {
+        int rows = (int) Math.min(written, capacity);
+        int first = (int) ((written - rows) % capacity);
+        byte[] data = new byte[rows * RECORD_SIZE];
+
+        int headRows = Math.min(rows, capacity - first);
+        buffer.get(HEADER_SIZE + first * RECORD_SIZE, data, 0, headRows * RECORD_SIZE);
+        buffer.get(HEADER_SIZE, data, headRows * RECORD_SIZE, (rows - headRows) * RECORD_SIZE);
+        return new Snapshot(data, rows, written);
+    }
+
+    public static final class Snapshot {
+        private final ByteBuffer rows;
+        private final int rowCount;
+        private final long written;
+
+        private Snapshot(byte[] data, int rowCount, long written) {
+            this.rows = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+            this.rowCount = rowCount;
+            this.written = written;
+        }
+
+        public int rowCount() {
+            return rowCount;
+        }
+
+        // Rows appended over the timeline's life, including ones the ring has since overwritten.
+        public long written() {
+            return written;
+        }
+
+        public void writeCsv(Appendable out) throws IOException {
+            out.append(CSV_HEADER).append('\n');
+            for (int row = 0; row < rowCount; row++) {
+                int offset = row * RECORD_SIZE;
+                out.append(Long.toString(rows.getLong(offset))).append(',')
+                        .append(Integer.toString(rows.getInt(offset + 8))).append(',')
+                        .append(Integer.toString(rows.getInt(offset + 12))).append(',')
+                        .append(Integer.toString(rows.getInt(offset + 16))).append(',')
+                        .append(Integer.toString(rows.getInt(offset + 20))).append(',')
+                        .append(Integer.toString(rows.getInt(offset + 24))).append(',')
+                        .append(Long.toString(rows.getLong(offset + 32))).append(',')
+                        .append(Long.toString(rows.getLong(offset + 40))).append(',')
+                        .append(Long.toString(rows.getLong(offset + 48))).append('\n');
+            }
+        }
+    }
+}
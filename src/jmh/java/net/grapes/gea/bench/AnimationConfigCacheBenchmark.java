@@ -0,0 +1,65 @@
+package net.grapes.gea.bench;
+
+import net.grapes.gea.core.AnimationConfigCache;
+import net.grapes.gea.core.AnimationConfigParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class AnimationConfigCacheBenchmark {
+
+    @Param({"100", "5000"})
+    public int items;
+
+    @Param({"5"})
+    public int framesPerItem;
+
+    private Path directory;
+    private Path jsonFile;
+    private Path cacheFile;
+    private List<AnimationConfigCache.SourceFingerprint> sources;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("gea-config-cache");
+        jsonFile = directory.resolve("gea-animations.json");
+        cacheFile = directory.resolve("gea-animations.cache");
+
+        Map<String, List<String>> config = AnimationConfigParserBenchmark.syntheticConfig(items, framesPerItem);
+        Files.writeString(jsonFile, AnimationConfigParser.toJson(config));
+        sources = List.of(AnimationConfigCache.SourceFingerprint.of(jsonFile));
+        AnimationConfigCache.write(cacheFile, sources, config);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(jsonFile);
+        Files.deleteIfExists(cacheFile);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public Map<String, List<String>> parseJson() throws IOException {
+        try (Reader reader = Files.newBufferedReader(jsonFile, StandardCharsets.UTF_8)) {
+            return AnimationConfigParser.parse(reader);
+        }
+    }
+
+    @Benchmark
+    public Map<String, List<String>> readCache() throws IOException {
+        return AnimationConfigCache.read(cacheFile, List.of(AnimationConfigCache.SourceFingerprint.of(jsonFile)));
+    }
+}
@@ -0,0 +1,60 @@
+package net.grapes.gea.bench;
+
+import net.grapes.gea.core.AnimationConfigParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class AnimationConfigParserBenchmark {
+
+    @Param({"100", "5000"})
+    public int items;
+
+    @Param({"5"})
+    public int framesPerItem;
+
+    private String json;
+
+    @Setup
+    public void setup() {
+        json = AnimationConfigParser.toJson(syntheticConfig(items, framesPerItem));
+    }
+
+    @Benchmark
+    public Map<String, List<String>> parse() {
+        return AnimationConfigParser.parse(new StringReader(json));
+    }
+
+    @Benchmark
+    public Map<String, List<String>> parseStreaming() throws IOException {
+        return AnimationConfigParser.parseStreaming(new StringReader(json), null);
+    }
+
+    static Map<String, List<String>> syntheticConfig(int items, int framesPerItem) {
+        Map<String, List<String>> config = new LinkedHashMap<>();
+        for (int i = 0; i < items; i++) {
+            String namespace = "mod" + (i % 40);
+            String itemId = namespace + ":food_" + i;
+            List<String> frames = new ArrayList<>(framesPerItem);
+            frames.add(itemId);
+            frames.add(itemId);
+            for (int frame = 2; frame < framesPerItem; frame++) {
+                frames.add("gea:" + namespace + "/food_" + i + "_" + (frame - 2));
+            }
+            config.put(itemId, frames);
+        }
+        return config;
+    }
+}
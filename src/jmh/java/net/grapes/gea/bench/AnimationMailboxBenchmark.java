@@ -0,0 +1,50 @@
+package net.grapes.gea.bench;
+
+import net.grapes.gea.core.CoalescingMailbox;
+import net.grapes.gea.core.DoubleBufferedIntMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class AnimationMailboxBenchmark {
+
+    // Packets arriving within one client tick during a join burst, spread over this many entities.
+    @Param({"200"})
+    public int packetsPerTick;
+
+    @Param({"20", "100"})
+    public int entities;
+
+    private final CoalescingMailbox<Integer> mailbox = new CoalescingMailbox<>();
+    private final DoubleBufferedIntMap<Integer> table = new DoubleBufferedIntMap<>();
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < entities; i++) {
+            table.put(1000 + i, i);
+        }
+        table.publish();
+    }
+
+    @Benchmark
+    public int offerDrainPublish() {
+        for (int i = 0; i < packetsPerTick; i++) {
+            int entityId = 1000 + (i % entities);
+            mailbox.offer(entityId, i);
+        }
+        mailbox.drain(table::put);
+        table.publish();
+        return table.size();
+    }
+
+    @Benchmark
+    public Integer readPublished() {
+        return table.get(1000 + (entities >> 1));
+    }
+}
@@ -0,0 +1,68 @@
+package net.grapes.gea.bench;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.grapes.gea.core.AnimationPacketCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class AnimationPacketCodecBenchmark {
+
+    private static final AnimationPacketCodec.Factory<Decoded> FACTORY = Decoded::new;
+
+    private ByteBuf writeBuffer;
+    private ByteBuf encoded;
+
+    @Setup
+    public void setup() {
+        writeBuffer = Unpooled.buffer(256);
+        encoded = Unpooled.buffer(256);
+        AnimationPacketCodec.encode(encoded, 4242, "farmersdelight:beef_stew", 2, 32, true, 123456, 123470);
+    }
+
+    @TearDown
+    public void tearDown() {
+        writeBuffer.release();
+        encoded.release();
+    }
+
+    @Benchmark
+    public int encode() {
+        writeBuffer.clear();
+        AnimationPacketCodec.encode(writeBuffer, 4242, "farmersdelight:beef_stew", 2, 32, true, 123456, 123470);
+        return writeBuffer.writerIndex();
+    }
+
+    @Benchmark
+    public Decoded decode() {
+        encoded.readerIndex(0);
+        return AnimationPacketCodec.decode(encoded, FACTORY);
+    }
+
+    public static final class Decoded {
+        final int playerId;
+        final String itemId;
+        final int variant;
+        final int useDuration;
+        final boolean isEating;
+        final int startTick;
+        final int sendTick;
+
+        Decoded(int playerId, String itemId, int variant, int useDuration, boolean isEating, int startTick, int sendTick) {
+            this.playerId = playerId;
+            this.itemId = itemId;
+            this.variant = variant;
+            this.useDuration = useDuration;
+            this.isEating = isEating;
+            this.startTick = startTick;
+            this.sendTick = sendTick;
+        }
+    }
+}
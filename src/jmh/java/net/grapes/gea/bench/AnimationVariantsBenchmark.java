@@ -0,0 +1,74 @@
+package net.grapes.gea.bench;
+
+import net.grapes.gea.core.AnimationVariants;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class AnimationVariantsBenchmark {
+
+    private static final String ITEM = "farmersdelight:beef_stew";
+    private static final String[] FLAVOURS = {"plain", "spicy", "sweet", "sour", "smoky", "herbal", "salty", "bitter"};
+
+    // Flat maps of dotted path to canonical value stand in for NBT compounds.
+    private static final AnimationVariants.TagReader<Map<String, String>> READER =
+            (root, path) -> root != null ? root.get(String.join(".", path)) : null;
+
+    private AnimationVariants variants;
+    private Map<String, String> matching;
+    private Map<String, String> unmatched;
+
+    @Setup
+    public void setup() {
+        Map<String, List<String>> animations = new HashMap<>();
+        animations.put(ITEM, frames("stew"));
+        for (String flavour : FLAVOURS) {
+            animations.put(ITEM + "{flavour=" + flavour + "}", frames(flavour));
+            for (int freshness = 0; freshness < 4; freshness++) {
+                animations.put(ITEM + "{flavour=" + flavour + ",freshness.level=" + freshness + "b}", frames(flavour + freshness));
+            }
+        }
+        variants = AnimationVariants.compile(animations, (key, reason) -> {
+            throw new IllegalStateException(key + ": " + reason);
+        });
+
+        matching = new HashMap<>();
+        matching.put("flavour", "smoky");
+        matching.put("freshness.level", "2");
+        unmatched = new HashMap<>();
+        unmatched.put("colour", "red");
+    }
+
+    @Benchmark
+    public int resolveMatching() {
+        return variants.resolve(ITEM, matching, READER);
+    }
+
+    @Benchmark
+    public int resolveUnmatched() {
+        return variants.resolve(ITEM, unmatched, READER);
+    }
+
+    @Benchmark
+    public int resolveNoVariants() {
+        return variants.resolve("minecraft:apple", matching, READER);
+    }
+
+    private static List<String> frames(String name) {
+        List<String> frames = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            frames.add("gea:" + name + "_" + i);
+        }
+        return frames;
+    }
+}
@@ -0,0 +1,30 @@
+package net.grapes.gea.bench;
+
+import net.grapes.gea.core.EventRing;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class EventRingBenchmark {
+    private static final String ITEM = "farmersdelight:beef_stew";
+
+    private final EventRing ring = new EventRing(8192);
+
+    @Benchmark
+    @Threads(1)
+    public void recordSingleThread() {
+        ring.record(3, 4242, 32, 123456, ITEM);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordContended() {
+        ring.record(3, 4242, 32, 123456, ITEM);
+    }
+}
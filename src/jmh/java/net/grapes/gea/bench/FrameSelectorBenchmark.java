@@ -0,0 +1,49 @@
+package net.grapes.gea.bench;
+
+import net.grapes.gea.core.FrameSelector;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FrameSelectorBenchmark {
+
+    @Param({"5", "10"})
+    public int frameCount;
+
+    @Param({"32", "64"})
+    public int useDuration;
+
+    private int startTick;
+    private int currentTick;
+
+    @Setup
+    public void setup() {
+        startTick = 1000;
+        currentTick = startTick;
+    }
+
+    @Benchmark
+    public int frameIndex() {
+        currentTick++;
+        int elapsed = FrameSelector.elapsedTicks(currentTick, startTick, true);
+        if (elapsed >= useDuration) {
+            startTick = currentTick;
+        }
+        return FrameSelector.frameIndex(elapsed, frameCount, useDuration);
+    }
+
+    @Benchmark
+    public void fullAnimation(Blackhole blackhole) {
+        for (int tick = 0; tick < useDuration; tick++) {
+            int elapsed = FrameSelector.clampElapsed(FrameSelector.elapsedTicks(startTick + tick, startTick, true), useDuration);
+            blackhole.consume(FrameSelector.frameIndex(elapsed, frameCount, useDuration));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package net.grapes.gea.bench;
+
+import net.grapes.gea.core.OutboundQueue;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class OutboundQueueBenchmark {
+
+    private static final int PACKET_SIZE = 39;
+    private static final int BUDGET = 1024;
+
+    // Eaters around one recipient during a feast.
+    @Param({"8", "64"})
+    public int eaters;
+
+    private OutboundQueue<Integer> queue;
+    private Integer[] messages;
+    private int[] priorities;
+    private int tick;
+    private int sent;
+
+    @Setup
+    public void setup() {
+        queue = new OutboundQueue<>();
+        messages = new Integer[eaters];
+        priorities = new int[eaters];
+        for (int i = 0; i < eaters; i++) {
+            messages[i] = i;
+            priorities[i] = (i * 7) % 8;
+        }
+    }
+
+    // One tick: every eater's state is offered, some of it superseding last tick's leftovers, then drained.
+    @Benchmark
+    public int offerAndDrain() {
+        tick++;
+        for (int i = 0; i < eaters; i++) {
+            queue.offer(i, messages[i], PACKET_SIZE, priorities[i], tick);
+        }
+        return queue.drain(BUDGET, tick, this::send);
+    }
+
+    private boolean send(Integer message, int waitedTicks) {
+        sent += message;
+        return true;
+    }
+}
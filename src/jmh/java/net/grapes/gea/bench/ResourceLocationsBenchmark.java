@@ -0,0 +1,34 @@
+package net.grapes.gea.bench;
+
+import net.grapes.gea.core.ResourceLocations;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ResourceLocationsBenchmark {
+
+    private static final String[] LOCATIONS = {
+            "minecraft:apple",
+            "gea:apple_0",
+            "farmersdelight:item/beef_stew_bitten_2",
+            "Invalid:Upper",
+            "no_namespace",
+            "gea:",
+            "some.mod-id:deep/nested/path/frame_10"
+    };
+
+    @Benchmark
+    @OperationsPerInvocation(7)
+    public void isValid(Blackhole blackhole) {
+        for (String location : LOCATIONS) {
+            blackhole.consume(ResourceLocations.isValid(location));
+        }
+    }
+}
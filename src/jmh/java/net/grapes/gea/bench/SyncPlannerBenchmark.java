@@ -0,0 +1,75 @@
+package net.grapes.gea.bench;
+
+import net.grapes.gea.core.SyncPlanner;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// 200 players spread over a spawn-town-sized area, a quarter of them eating.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SyncPlannerBenchmark {
+    private static final double SYNC_DISTANCE = 64.0;
+
+    @Param({"200"})
+    public int players;
+
+    private int[] levels;
+    private double[] xs;
+    private double[] ys;
+    private double[] zs;
+    private int[] eaters;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        levels = new int[players];
+        xs = new double[players];
+        ys = new double[players];
+        zs = new double[players];
+        for (int i = 0; i < players; i++) {
+            levels[i] = random.nextInt(10) == 0 ? 1 : 0;
+            xs[i] = random.nextDouble(-400, 400);
+            ys[i] = random.nextDouble(60, 80);
+            zs[i] = random.nextDouble(-400, 400);
+        }
+        eaters = new int[players / 4];
+        for (int i = 0; i < eaters.length; i++) {
+            eaters[i] = i * 4;
+        }
+    }
+
+    @Benchmark
+    public int[][] plan() {
+        return SyncPlanner.plan(levels, xs, ys, zs, players, eaters, eaters.length, SYNC_DISTANCE);
+    }
+
+    // The per-eater scan over every player that sync used before planning moved off the server thread.
+    @Benchmark
+    public int[][] scanAllPlayers() {
+        int[][] recipients = new int[eaters.length][];
+        int[] found = new int[players];
+        for (int i = 0; i < eaters.length; i++) {
+            int eater = eaters[i];
+            int count = 0;
+            for (int player = 0; player < players; player++) {
+                if (player != eater && levels[player] == levels[eater]) {
+                    double dx = xs[player] - xs[eater];
+                    double dy = ys[player] - ys[eater];
+                    double dz = zs[player] - zs[eater];
+                    if (Math.sqrt(dx * dx + dy * dy + dz * dz) <= SYNC_DISTANCE) {
+                        found[count++] = player;
+                    }
+                }
+            }
+            recipients[i] = Arrays.copyOf(found, count);
+        }
+        return recipients;
+    }
+}
@@ -0,0 +1,42 @@
+package net.grapes.gea.bench;
+
+import net.grapes.gea.core.TickAdjustment;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TickAdjustmentBenchmark {
+    private static final int SAMPLES = 1024;
+
+    private final int[] clientTicks = new int[SAMPLES];
+    private final int[] elapsedTicks = new int[SAMPLES];
+    private final long[] delays = new long[SAMPLES];
+    private final int[] durations = new int[SAMPLES];
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < SAMPLES; i++) {
+            clientTicks[i] = random.nextInt(0, 100_000);
+            elapsedTicks[i] = random.nextInt(0, 40);
+            delays[i] = random.nextLong(0, 500_000_000L);
+            durations[i] = random.nextBoolean() ? 32 : 16;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void compensatedStartTick(Blackhole blackhole) {
+        for (int i = 0; i < SAMPLES; i++) {
+            blackhole.consume(TickAdjustment.compensatedStartTick(clientTicks[i], elapsedTicks[i], delays[i], durations[i]));
+        }
+    }
+}
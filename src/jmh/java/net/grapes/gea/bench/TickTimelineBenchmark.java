@@ -0,0 +1,40 @@
+package net.grapes.gea.bench;
+
+import net.grapes.gea.core.TickTimeline;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TickTimelineBenchmark {
+    private Path directory;
+    private TickTimeline timeline;
+    private int tick;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("gea-timeline-bench");
+        timeline = TickTimeline.create(directory.resolve("timeline.bin"), 72000);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        timeline.close();
+        Files.deleteIfExists(directory.resolve("timeline.bin"));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public void append() {
+        tick++;
+        timeline.append(1_700_000_000_000L + tick * 50L, tick, 12, 3, 36, 36, 1_296, 85_000, 31_000);
+    }
+}
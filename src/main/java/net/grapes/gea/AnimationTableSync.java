@@ -0,0 +1,91 @@
+package net.grapes.gea;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraftforge.network.PacketDistributor;
+import net.minecraftforge.server.ServerLifecycleHooks;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class AnimationTableSync {
+
+    // Hash of the last table sent to each player, so a misbehaving client can't make us resend it repeatedly.
+    private static final ConcurrentHashMap<UUID, String> transferredTables = new ConcurrentHashMap<>();
+
+    public static void sendTableHash(ServerPlayer player) {
+        try {
+            EatingAnimationConfig.CompiledTable table = EatingAnimationConfig.getCompiledTable();
+            NetworkHandler.INSTANCE.send(
+                    PacketDistributor.PLAYER.with(() -> player),
+                    new NetworkHandler.AnimationTableHashPacket(table.hash, table.data.length)
+            );
+            GrapesEatingAnimation.LOGGER.debug("GEA: Sent animation table hash {} to {}",
+                    table.hash, player.getName().getString());
+        } catch (IOException e) {
+            GrapesEatingAnimation.LOGGER.error("GEA: Failed to compile animation table for sync", e);
+        }
+    }
+
+    public static void broadcastTableHash(MinecraftServer server) {
+        for (ServerPlayer player : server.getPlayerList().getPlayers()) {
+            sendTableHash(player);
+        }
+    }
+
+    public static void onAnimationsChanged(Set<String> changedItems) {
+        MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+        if (server != null) {
+            server.execute(() -> broadcastTableHash(server));
+        }
+    }
+
+    public static void handleTableRequest(ServerPlayer player, String hash) {
+        EatingAnimationConfig.CompiledTable table;
+        try {
+            table = EatingAnimationConfig.getCompiledTable();
+        } catch (IOException e) {
+            GrapesEatingAnimation.LOGGER.error("GEA: Failed to compile animation table for sync", e);
+            return;
+        }
+
+        if (!table.hash.equals(hash)) {
+            GrapesEatingAnimation.LOGGER.debug("GEA: {} requested stale animation table {}, current is {}",
+                    player.getName().getString(), hash, table.hash);
+            sendTableHash(player);
+            return;
+        }
+
+        if (hash.equals(transferredTables.put(player.getUUID(), hash))) {
+            GrapesEatingAnimation.LOGGER.warn("GEA: Ignoring repeated animation table request from {}",
+                    player.getName().getString());
+            return;
+        }
+
+        int chunkSize = NetworkHandler.AnimationTableChunkPacket.MAX_CHUNK_SIZE;
+        int total = Math.max(1, (table.data.length + chunkSize - 1) / chunkSize);
+
+        for (int index = 0; index < total; index++) {
+            int from = index * chunkSize;
+            int to = Math.min(table.data.length, from + chunkSize);
+            NetworkHandler.INSTANCE.send(
+                    PacketDistributor.PLAYER.with(() -> player),
+                    new NetworkHandler.AnimationTableChunkPacket(hash, index, total, Arrays.copyOfRange(table.data, from, to))
+            );
+        }
+
+        GrapesEatingAnimation.LOGGER.debug("GEA: Sent animation table {} ({} bytes, {} chunks) to {}",
+                hash, table.data.length, total, player.getName().getString());
+    }
+
+    public static void forgetPlayer(ServerPlayer player) {
+        transferredTables.remove(player.getUUID());
+    }
+
+    static boolean isTrackingPlayer(ServerPlayer player) {
+        return transferredTables.containsKey(player.getUUID());
+    }
+}
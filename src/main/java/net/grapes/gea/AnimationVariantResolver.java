@@ -0,0 +1,43 @@
+package net.grapes.gea;
+
+import net.grapes.gea.core.AnimationVariants;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NumericTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.item.ItemStack;
+
+// Works out which animation variant applies to a stack. Items without variants return straight away; for the
+// rest, only the NBT paths the item's variants test are read, never the whole tag. Callers resolve once when
+// eating starts and keep the variant on their eating state instead of resolving again every tick.
+public class AnimationVariantResolver {
+    private static final AnimationVariants.TagReader<CompoundTag> TAG_READER = AnimationVariantResolver::readTag;
+
+    public static int resolve(ItemStack stack, ResourceLocation itemId) {
+        AnimationVariants variants = EatingAnimationConfig.getVariants();
+        String item = itemId.toString();
+        if (!variants.hasVariants(item)) {
+            return AnimationVariants.BASE_VARIANT;
+        }
+
+        return variants.resolve(item, stack.getTag(), TAG_READER);
+    }
+
+    private static String readTag(CompoundTag root, String[] path) {
+        Tag tag = root;
+        for (String segment : path) {
+            if (!(tag instanceof CompoundTag)) {
+                return null;
+            }
+            tag = ((CompoundTag) tag).get(segment);
+        }
+
+        if (tag == null) {
+            return null;
+        }
+        if (tag instanceof NumericTag) {
+            return AnimationVariants.canonicalNumber(((NumericTag) tag).getAsDouble());
+        }
+        return tag.getAsString();
+    }
+}
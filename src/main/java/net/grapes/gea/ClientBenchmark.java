@@ -0,0 +1,257 @@
+package net.grapes.gea;
+
+import com.mojang.authlib.GameProfile;
+import net.grapes.gea.core.BenchmarkSamples;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.multiplayer.ClientLevel;
+import net.minecraft.client.player.RemotePlayer;
+import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.InteractionHand;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import net.minecraftforge.client.event.ClientPlayerNetworkEvent;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.registries.ForgeRegistries;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+// Client half of /gea bench: remote players that exist only on this client eat animated items around the
+// local player. Their state arrives as synthetic packets through the real mailbox, so resolve, update, packet
+// handling and cleanup all run as they would for real players.
+@OnlyIn(Dist.CLIENT)
+@Mod.EventBusSubscriber(modid = GrapesEatingAnimation.MODID, value = Dist.CLIENT)
+public class ClientBenchmark {
+    private static final int FIRST_ENTITY_ID = -100_000;
+    private static final int RESYNC_INTERVAL = 10;
+    private static final int CLEANUP_DELAY_TICKS = 2;
+    private static final double SPREAD = 24.0;
+
+    private static ClientBenchmark active = null;
+
+    private final ClientLevel level;
+    private final List<SyntheticEater> eaters = new ArrayList<>();
+    private final Set<Integer> eaterIds = new HashSet<>();
+    private final int totalTicks;
+    private final BenchmarkSamples frameNanos;
+    private final BenchmarkSamples frameAllocations;
+
+    private int ticksRun = 0;
+    private int cleanupDelay = -1;
+    private long lastTimerNanos;
+    private long lastTimerAllocated;
+    private long offeredPackets = 0;
+    private long coalescedAtStart;
+    private long droppedAtStart;
+
+    private ClientBenchmark(ClientLevel level, int totalTicks) {
+        this.level = level;
+        this.totalTicks = totalTicks;
+        this.frameNanos = new BenchmarkSamples(totalTicks * 4);
+        this.frameAllocations = new BenchmarkSamples(totalTicks * 4);
+    }
+
+    public static void start(int animations, int ticks) {
+        Minecraft minecraft = Minecraft.getInstance();
+        if (minecraft.level == null || minecraft.player == null) {
+            return;
+        }
+        if (active != null) {
+            minecraft.player.displayClientMessage(Component.literal("§cA GEA client benchmark is already running"), false);
+            return;
+        }
+
+        List<Item> items = new ArrayList<>();
+        for (String key : EatingAnimationConfig.getAnimatedItemIds()) {
+            ResourceLocation itemId = ResourceLocation.tryParse(key);
+            Item item = itemId != null ? ForgeRegistries.ITEMS.getValue(itemId) : null;
+            if (item != null && new ItemStack(item).isEdible()) {
+                items.add(item);
+            }
+        }
+        if (items.isEmpty()) {
+            minecraft.player.displayClientMessage(Component.literal("§cNo edible items with animations are configured"), false);
+            return;
+        }
+
+        ClientBenchmark benchmark = new ClientBenchmark(minecraft.level, ticks);
+        double originX = minecraft.player.getX();
+        double originY = minecraft.player.getY();
+        double originZ = minecraft.player.getZ();
+
+        for (int i = 0; i < animations; i++) {
+            String name = "gea_bench_" + i;
+            SyntheticEater eater = new SyntheticEater(minecraft.level,
+                    new GameProfile(UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8)), name));
+            double angle = i * 2.399963;
+            double radius = 2.0 + SPREAD * Math.sqrt((i + 0.5) / animations);
+            eater.setId(FIRST_ENTITY_ID - i);
+            eater.moveTo(originX + Math.cos(angle) * radius, originY, originZ + Math.sin(angle) * radius, (float) Math.toDegrees(angle) + 90.0F, 0.0F);
+            eater.setItemInHand(InteractionHand.MAIN_HAND, new ItemStack(items.get(i % items.size())));
+            minecraft.level.addPlayer(eater.getId(), eater);
+            benchmark.eaters.add(eater);
+            benchmark.eaterIds.add(eater.getId());
+        }
+
+        benchmark.coalescedAtStart = ClientNetworkHandler.getCoalescedPacketCount();
+        benchmark.droppedAtStart = ClientNetworkHandler.getDroppedPacketCount();
+        for (SyntheticEater eater : benchmark.eaters) {
+            eater.startEating();
+            benchmark.offerState(eater, true);
+        }
+
+        GeaFrameTimer.acquire(true);
+        benchmark.lastTimerNanos = GeaFrameTimer.getTotalNanos();
+        benchmark.lastTimerAllocated = GeaFrameTimer.getTotalAllocatedBytes();
+        active = benchmark;
+
+        GrapesEatingAnimation.LOGGER.info("GEA: Client benchmark started - {} synthetic eaters for {} ticks", animations, ticks);
+    }
+
+    private void offerState(SyntheticEater eater, boolean eating) {
+        ItemStack stack = eater.getMainHandItem();
+        ResourceLocation itemId = ForgeRegistries.ITEMS.getKey(stack.getItem());
+        ClientNetworkHandler.offerEatingAnimationPacket(eating
+                ? new NetworkHandler.EatingAnimationPacket(eater.getId(), itemId != null ? itemId.toString() : null,
+                itemId != null ? AnimationVariantResolver.resolve(stack, itemId) : 0, stack.getUseDuration(), true, eater.eatingStartTick, eater.tickCount)
+                : new NetworkHandler.EatingAnimationPacket(eater.getId(), null, 0, 0, false, 0, eater.tickCount));
+        offeredPackets++;
+    }
+
+    private void tick() {
+        if (ticksRun < totalTicks) {
+            for (int i = 0; i < eaters.size(); i++) {
+                SyntheticEater eater = eaters.get(i);
+                if (eater.tickCount - eater.eatingStartTick >= eater.getMainHandItem().getUseDuration()) {
+                    offerState(eater, false);
+                    eater.startEating();
+                    offerState(eater, true);
+                } else if ((ticksRun + i) % RESYNC_INTERVAL == 0) {
+                    offerState(eater, true);
+                }
+            }
+
+            if (++ticksRun == totalTicks) {
+                GeaFrameTimer.release(true);
+                report();
+                cleanupDelay = CLEANUP_DELAY_TICKS;
+            }
+        } else if (--cleanupDelay <= 0) {
+            // Waited for the mailbox to drain, so no packet for a removed eater is still in flight.
+            cleanup();
+        }
+    }
+
+    private void onFrameEnd() {
+        if (ticksRun >= totalTicks) {
+            return;
+        }
+        long timerNanos = GeaFrameTimer.getTotalNanos();
+        long timerAllocated = GeaFrameTimer.getTotalAllocatedBytes();
+        frameNanos.add(timerNanos - lastTimerNanos);
+        frameAllocations.add(timerAllocated - lastTimerAllocated);
+        lastTimerNanos = timerNanos;
+        lastTimerAllocated = timerAllocated;
+    }
+
+    private void report() {
+        Minecraft minecraft = Minecraft.getInstance();
+        if (minecraft.player == null) {
+            return;
+        }
+
+        double seconds = ticksRun / 20.0;
+        int frames = frameNanos.size();
+        List<String> lines = new ArrayList<>();
+        lines.add("§aGEA bench (client): §f" + eaters.size() + "§a eaters, §f" + ticksRun + "§a ticks, §f" + frames + "§a frames");
+        lines.add(String.format("§7  GEA per frame: p50 §f%.1f§7, p90 §f%.1f§7, p99 §f%.1f§7, max §f%.1f§7 µs",
+                frameNanos.percentile(50) / 1000.0, frameNanos.percentile(90) / 1000.0,
+                frameNanos.percentile(99) / 1000.0, frameNanos.max() / 1000.0));
+        lines.add(BenchmarkSamples.threadAllocatedBytes() >= 0
+                ? String.format("§7  Allocation in GEA code: §f%.1f§7 KB/frame (§f%.2f§7 MB/s)",
+                frames > 0 ? frameAllocations.sum() / 1024.0 / frames : 0.0, frameAllocations.sum() / (1024.0 * 1024.0) / seconds)
+                : "§7  Allocation: §funavailable on this JVM");
+        lines.add(String.format("§7  Packets: §f%d§7 offered (§f%.1f§7/tick), §f%d§7 coalesced, §f%d§7 dropped",
+                offeredPackets, offeredPackets / (double) ticksRun,
+                ClientNetworkHandler.getCoalescedPacketCount() - coalescedAtStart,
+                ClientNetworkHandler.getDroppedPacketCount() - droppedAtStart));
+
+        for (String line : lines) {
+            minecraft.player.displayClientMessage(Component.literal(line), false);
+        }
+        GrapesEatingAnimation.LOGGER.info("GEA: Client benchmark results - eaters={}, ticks={}, frames={}, frameNanos p50={} p90={} p99={} max={}, allocatedBytes={}, packets={}",
+                eaters.size(), ticksRun, frames, frameNanos.percentile(50), frameNanos.percentile(90), frameNanos.percentile(99),
+                frameNanos.max(), frameAllocations.sum(), offeredPackets);
+    }
+
+    private void cleanup() {
+        if (ticksRun < totalTicks) {
+            GeaFrameTimer.release(true);
+        }
+
+        for (SyntheticEater eater : eaters) {
+            EatingAnimationHandler.clearAnimationState(eater);
+            if (Minecraft.getInstance().level == level) {
+                level.removeEntity(eater.getId(), Entity.RemovalReason.DISCARDED);
+            }
+        }
+        ClientNetworkHandler.discardDelayedPackets(eaterIds);
+        EatingAnimationHandler.publishAnimationStates();
+        active = null;
+
+        GrapesEatingAnimation.LOGGER.info("GEA: Client benchmark removed {} synthetic eaters", eaters.size());
+    }
+
+    @SubscribeEvent
+    public static void onClientTick(TickEvent.ClientTickEvent event) {
+        if (event.phase == TickEvent.Phase.END && active != null) {
+            active.tick();
+        }
+    }
+
+    @SubscribeEvent
+    public static void onRenderTick(TickEvent.RenderTickEvent event) {
+        if (event.phase == TickEvent.Phase.END && active != null) {
+            active.onFrameEnd();
+        }
+    }
+
+    @SubscribeEvent
+    public static void onLoggingOut(ClientPlayerNetworkEvent.LoggingOut event) {
+        if (active != null) {
+            active.cleanup();
+        }
+    }
+
+    private static class SyntheticEater extends RemotePlayer {
+        private int eatingStartTick = 0;
+
+        SyntheticEater(ClientLevel level, GameProfile profile) {
+            super(level, profile);
+        }
+
+        // The using-item flag is normally synced from the server, so set it ourselves.
+        void startEating() {
+            stopUsingItem();
+            setLivingEntityFlag(1, false);
+            startUsingItem(InteractionHand.MAIN_HAND);
+            setLivingEntityFlag(1, true);
+            eatingStartTick = tickCount;
+        }
+
+        @Override
+        protected void triggerItemUseEffects(ItemStack stack, int amount) {
+            // No particles or eating sounds from hundreds of benchmark players.
+        }
+    }
+}
@@ -1,31 +1,58 @@
 // TODO: Avoid double lookup of entity between handleEatingAnimationPacket and handleEatingAnimationPacketInternal
 // TODO: Consider making clientFullyInitialized and similar flags volatile or use Atomic types for safety
 // TODO: Extract magic numbers like timeout and maxAllowedDifference into named constants or config
-// TODO: Add guard to prevent excessively verbose logging in production environments
 // TODO: Investigate if returning true for non-Player entities is correct behavior (could suppress retry unnecessarily)
 // TODO: Consider basing timeout and timing logic on tickCount or a game-tick timer rather than System.currentTimeMillis()
 // TODO: Optionally, improve memory handling for delayedPackets by limiting queue size or handling repeated failures
 
 package net.grapes.gea;
 
+import net.grapes.gea.core.AnimationTableCodec;
+import net.grapes.gea.core.CoalescingMailbox;
+import net.grapes.gea.core.LatencyEstimator;
+import net.grapes.gea.core.TickAdjustment;
+import net.minecraft.Util;
 import net.minecraft.client.Minecraft;
+import net.minecraft.client.multiplayer.ClientPacketListener;
+import net.minecraft.client.multiplayer.PlayerInfo;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.util.profiling.ProfilerFiller;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.player.Player;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
+import net.minecraftforge.client.event.ClientPlayerNetworkEvent;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.event.TickEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
-
+import net.minecraftforge.fml.loading.FMLPaths;
+import net.minecraftforge.registries.ForgeRegistries;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.Iterator;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @OnlyIn(Dist.CLIENT)
 public class ClientNetworkHandler {
 
+    // Filled from the network thread, drained once per client tick keeping only the newest packet per entity.
+    private static final CoalescingMailbox<NetworkHandler.EatingAnimationPacket> incomingPackets = new CoalescingMailbox<>();
     private static final ConcurrentLinkedQueue<DelayedPacket> delayedPackets = new ConcurrentLinkedQueue<>();
     private static boolean registered = false;
+    private static long droppedDelayedPackets = 0;
 
     private static boolean clientFullyInitialized = false;
     private static int initializationTicks = 0;
@@ -35,6 +62,19 @@ public class ClientNetworkHandler {
     private static long connectionTime = 0;
     private static final long CONNECTION_STABILIZATION_TIME = 1000;
 
+    private static final Path TABLE_CACHE_DIR = FMLPaths.CONFIGDIR.get().resolve("gea-cache");
+    private static final Pattern TABLE_HASH_PATTERN = Pattern.compile("[0-9a-f]{32}");
+    private static final int MAX_CACHED_TABLES = 8;
+    private static final int MAX_TABLE_CHUNKS = 1024;
+
+    private static final int LATENCY_PING_INTERVAL_TICKS = 40;
+    private static final LatencyEstimator latency = new LatencyEstimator();
+    private static int ticksSinceLatencyPing = LATENCY_PING_INTERVAL_TICKS;
+
+    private static String pendingTableHash = null;
+    private static byte[][] pendingTableChunks = null;
+    private static int receivedTableChunks = 0;
+
     public static void init() {
         if (!registered) {
             MinecraftForge.EVENT_BUS.register(ClientNetworkHandler.class);
@@ -68,7 +108,25 @@ public class ClientNetworkHandler {
             }
         }
 
+        if (clientFullyInitialized && ++ticksSinceLatencyPing >= LATENCY_PING_INTERVAL_TICKS) {
+            ticksSinceLatencyPing = 0;
+            sendLatencyPing(minecraft);
+        }
+
+        ProfilerFiller profiler = minecraft.getProfiler();
+        long startNanos = GeaFrameTimer.start();
+        GeaProfiler.push(profiler, GeaProfiler.INCOMING_PACKETS);
+        incomingPackets.drain((entityId, packet) -> handleEatingAnimationPacket(packet));
+        GeaProfiler.popPush(profiler, GeaProfiler.DELAYED_PACKETS);
         processDelayedPackets();
+        GeaProfiler.pop(profiler);
+        EatingAnimationHandler.tickLocalPlayer(minecraft, profiler);
+        EatingAnimationHandler.publishAnimationStates();
+        GeaFrameTimer.stop(startNanos);
+    }
+
+    public static void offerEatingAnimationPacket(NetworkHandler.EatingAnimationPacket packet) {
+        incomingPackets.offer(packet.getPlayerId(), packet);
     }
 
     private static void processDelayedPackets() {
@@ -88,36 +146,64 @@ public class ClientNetworkHandler {
             if (System.currentTimeMillis() - delayed.timestamp > timeout) {
                 iterator.remove();
                 droppedCount++;
-                GrapesEatingAnimation.LOGGER.warn("GEA: Dropped delayed packet after timeout for entity {}",
-                        delayed.packet.getPlayerId());
+                droppedDelayedPackets++;
+                GeaDiagnostics.record(GeaDiagnostics.Event.DELAYED_DROPPED, delayed.packet.getPlayerId());
+                recordDelayedPacket(delayed, "dropped");
                 continue;
             }
 
             if (handleEatingAnimationPacketInternal(delayed.packet)) {
                 iterator.remove();
                 processedCount++;
-                GrapesEatingAnimation.LOGGER.debug("GEA: Successfully processed delayed packet for entity {}",
-                        delayed.packet.getPlayerId());
+                GeaDiagnostics.record(GeaDiagnostics.Event.DELAYED_APPLIED, delayed.packet.getPlayerId());
+                recordDelayedPacket(delayed, "applied");
             }
         }
 
-        if (processedCount > 0 || droppedCount > 0) {
-            GrapesEatingAnimation.LOGGER.debug("GEA: Processed {} delayed packets, dropped {} expired packets. Remaining: {}",
-                    processedCount, droppedCount, delayedPackets.size());
+        if (droppedCount > 0) {
+            GrapesEatingAnimation.LOGGER.warn("GEA: Dropped {} delayed packets after timeout ({} processed, {} remaining)",
+                    droppedCount, processedCount, delayedPackets.size());
         }
     }
 
     public static void handleEatingAnimationPacket(NetworkHandler.EatingAnimationPacket packet) {
-        GrapesEatingAnimation.LOGGER.debug("GEA: Received eating animation packet - Player: {}, Item: {}, Eating: {}, StartTick: {}",
-                packet.getPlayerId(), packet.getItemId(), packet.isEating(), packet.getStartTick());
+        GeaDiagnostics.record(GeaDiagnostics.Event.PACKET_RECEIVED, packet.getPlayerId(), packet.isEating() ? 1 : 0,
+                packet.getStartTick(), packet.getItemId());
+
+        if (!delayedPackets.isEmpty()) {
+            // A newer state for this entity supersedes anything still waiting for it.
+            delayedPackets.removeIf(delayed -> delayed.packet.getPlayerId() == packet.getPlayerId());
+        }
+
+        boolean applied = handleEatingAnimationPacketInternal(packet);
 
-        if (handleEatingAnimationPacketInternal(packet)) {
+        GeaJfrEvents.PacketReceived event = new GeaJfrEvents.PacketReceived();
+        if (event.shouldCommit()) {
+            event.entityId = packet.getPlayerId();
+            event.item = packet.getItemId();
+            event.eating = packet.isEating();
+            event.applied = applied;
+            event.queueMillis = (System.nanoTime() - packet.getReceivedNanos()) / 1_000_000;
+            event.commit();
+        }
+
+        if (applied) {
             return;
         }
 
         delayedPackets.offer(new DelayedPacket(packet));
-        GrapesEatingAnimation.LOGGER.debug("GEA: Queued packet for delayed processing (client initialized: {}, entity found: {})",
-                clientFullyInitialized, findEntity(Minecraft.getInstance(), packet.getPlayerId()) != null);
+        GeaDiagnostics.record(GeaDiagnostics.Event.PACKET_DELAYED, packet.getPlayerId(), delayedPackets.size(), 0, null);
+    }
+
+    private static void recordDelayedPacket(DelayedPacket delayed, String outcome) {
+        GeaJfrEvents.DelayedPacket event = new GeaJfrEvents.DelayedPacket();
+        if (event.shouldCommit()) {
+            event.entityId = delayed.packet.getPlayerId();
+            event.outcome = outcome;
+            event.waitedMillis = System.currentTimeMillis() - delayed.timestamp;
+            event.remaining = delayedPackets.size();
+            event.commit();
+        }
     }
 
     private static class DelayedPacket {
@@ -149,10 +235,15 @@ public class ClientNetworkHandler {
 
         Player player = (Player) entity;
 
+        if (player == minecraft.player) {
+            // The local player's animation is predicted; the server only sends DurationCorrectionPackets for it.
+            return true;
+        }
+
         if (packet.isEating() && packet.getItemId() != null) {
             try {
                 ResourceLocation itemId = new ResourceLocation(packet.getItemId());
-                if (EatingAnimationConfig.hasAnimation(itemId)) {
+                if (EatingAnimationConfig.getAnimationKey(itemId, packet.getVariant()) != null) {
                     int adjustedStartTick = calculateAdjustedStartTick(packet, player);
 
                     EatingAnimationHandler.clearAnimationState(player);
@@ -160,60 +251,75 @@ public class ClientNetworkHandler {
                     EatingAnimationHandler.EatingAnimationState state =
                             new EatingAnimationHandler.EatingAnimationState(
                                     itemId,
+                                    packet.getVariant(),
                                     packet.getUseDuration(),
                                     adjustedStartTick,
                                     true
                             );
                     EatingAnimationHandler.setAnimationState(player, state);
-
-                    GrapesEatingAnimation.LOGGER.debug("GEA: Started eating animation for player {} with item {} (adjusted start tick: {}, server tick: {}, current tick: {})",
-                            player.getName().getString(), packet.getItemId(), adjustedStartTick, packet.getStartTick(), player.tickCount);
                 }
             } catch (Exception e) {
                 GrapesEatingAnimation.LOGGER.error("GEA: Failed to start eating animation: {}", e.getMessage());
             }
         } else {
             EatingAnimationHandler.clearAnimationState(player);
-            GrapesEatingAnimation.LOGGER.debug("GEA: Stopped eating animation for player {}",
-                    player.getName().getString());
         }
 
         return true;
     }
 
-    private static int calculateAdjustedStartTick(NetworkHandler.EatingAnimationPacket packet, Player player) {
-        int serverStartTick = packet.getStartTick();
-        int currentClientTick = player.tickCount;
+    public static void handleDurationCorrection(NetworkHandler.DurationCorrectionPacket packet) {
+        Minecraft minecraft = Minecraft.getInstance();
+        ResourceLocation itemId = ForgeRegistries.ITEMS.getKey(packet.getItem());
+        if (minecraft.player == null || itemId == null) {
+            return;
+        }
 
-        int tickDifference = currentClientTick - serverStartTick;
+        if (EatingAnimationHandler.correctDuration(minecraft.player, itemId, packet.getUseDuration())) {
+            GrapesEatingAnimation.LOGGER.debug("GEA: Corrected local eating duration for {} to {} ticks", itemId, packet.getUseDuration());
+        }
+    }
 
-        GrapesEatingAnimation.LOGGER.debug("GEA: Tick analysis - Server: {}, Client: {}, Difference: {}",
-                serverStartTick, currentClientTick, tickDifference);
+    // The server's tick counts mean nothing on our clock, so rebuild the start from the animation's age when it
+    // was sent, plus the one-way delay and however long the packet waited here before being applied.
+    private static int calculateAdjustedStartTick(NetworkHandler.EatingAnimationPacket packet, Player player) {
+        int elapsedAtSend = packet.getSendTick() - packet.getStartTick();
+        long delayNanos = getOneWayDelayNanos() + (System.nanoTime() - packet.getReceivedNanos());
+        int adjustedStartTick = TickAdjustment.compensatedStartTick(player.tickCount, elapsedAtSend, delayNanos, packet.getUseDuration());
 
-        int maxAllowedDifference = 150;
+        GeaDiagnostics.record(GeaDiagnostics.Event.START_TICK_ADJUSTED, packet.getPlayerId(), adjustedStartTick,
+                (int) (delayNanos / 1_000_000), null);
 
-        if (Math.abs(tickDifference) > maxAllowedDifference) {
-            int adjustedStartTick = currentClientTick - Math.min(10, packet.getUseDuration() / 8);
-            GrapesEatingAnimation.LOGGER.debug("GEA: Large tick difference detected ({}), adjusting start tick from {} to {}",
-                    tickDifference, serverStartTick, adjustedStartTick);
-            return adjustedStartTick;
-        }
+        return adjustedStartTick;
+    }
 
-        if (tickDifference < -5) {
-            int adjustedStartTick = currentClientTick - 2;
-            GrapesEatingAnimation.LOGGER.debug("GEA: Server tick in future detected, adjusting start tick from {} to {}",
-                    serverStartTick, adjustedStartTick);
-            return adjustedStartTick;
+    private static void sendLatencyPing(Minecraft minecraft) {
+        ClientPacketListener connection = minecraft.getConnection();
+        if (connection != null && NetworkHandler.INSTANCE.isRemotePresent(connection.getConnection())) {
+            NetworkHandler.INSTANCE.sendToServer(new NetworkHandler.LatencyPingPacket(System.nanoTime()));
         }
+    }
+
+    public static void handleLatencyPong(NetworkHandler.LatencyPongPacket packet) {
+        latency.addSample(System.nanoTime() - packet.getClientNanos());
+    }
 
-        if (tickDifference > packet.getUseDuration()) {
-            int adjustedStartTick = currentClientTick - Math.min(5, packet.getUseDuration() / 4);
-            GrapesEatingAnimation.LOGGER.debug("GEA: Very old packet detected, starting short animation from tick {}",
-                    adjustedStartTick);
-            return adjustedStartTick;
+    // Until the first pong arrives, half the vanilla keep-alive latency shown in the tab list.
+    public static long getOneWayDelayNanos() {
+        Minecraft minecraft = Minecraft.getInstance();
+        long fallbackNanos = 0;
+        ClientPacketListener connection = minecraft.getConnection();
+        if (!latency.hasSamples() && connection != null && minecraft.player != null) {
+            PlayerInfo info = connection.getPlayerInfo(minecraft.player.getUUID());
+            if (info != null) {
+                fallbackNanos = info.getLatency() * 1_000_000L / 2;
+            }
         }
+        return latency.getOneWayDelayNanos(fallbackNanos);
+    }
 
-        return serverStartTick;
+    public static long getSmoothedRttNanos() {
+        return latency.getSmoothedRttNanos();
     }
 
     private static Entity findEntity(Minecraft minecraft, int entityId) {
@@ -281,21 +387,205 @@ public class ClientNetworkHandler {
             Minecraft minecraft = Minecraft.getInstance();
 
             if (player == minecraft.player) {
+                incomingPackets.drain((entityId, packet) -> {});
                 delayedPackets.clear();
+                EatingAnimationHandler.clearAllAnimationStates();
                 clientFullyInitialized = false;
                 GrapesEatingAnimation.LOGGER.info("GEA: Local player left world, cleared state");
             }
         }
     }
 
+    @SubscribeEvent
+    public static void onLoggingOut(ClientPlayerNetworkEvent.LoggingOut event) {
+        resetPendingTable();
+        latency.reset();
+        ticksSinceLatencyPing = LATENCY_PING_INTERVAL_TICKS;
+        EatingAnimationConfig.clearServerAnimations();
+    }
+
+    public static void handleAnimationTableHash(NetworkHandler.AnimationTableHashPacket packet) {
+        Minecraft minecraft = Minecraft.getInstance();
+        String hash = packet.getHash();
+
+        if (minecraft.hasSingleplayerServer()) {
+            // The integrated server reads the same config we do.
+            return;
+        }
+
+        if (!TABLE_HASH_PATTERN.matcher(hash).matches()) {
+            GrapesEatingAnimation.LOGGER.warn("GEA: Ignoring animation table with malformed hash '{}'", hash);
+            return;
+        }
+
+        CompletableFuture.supplyAsync(() -> readCachedTable(hash), Util.ioPool())
+                .thenAcceptAsync(cachedTable -> {
+                    if (cachedTable != null) {
+                        GrapesEatingAnimation.LOGGER.info("GEA: Loaded server animation table {} from cache", hash);
+                        applyServerTable(cachedTable);
+                        return;
+                    }
+
+                    GrapesEatingAnimation.LOGGER.info("GEA: Requesting server animation table {} ({} bytes)", hash, packet.getSize());
+                    resetPendingTable();
+                    pendingTableHash = hash;
+                    NetworkHandler.INSTANCE.sendToServer(new NetworkHandler.AnimationTableRequestPacket(hash));
+                }, minecraft);
+    }
+
+    public static void handleAnimationTableChunk(NetworkHandler.AnimationTableChunkPacket packet) {
+        if (!packet.getHash().equals(pendingTableHash)) {
+            GrapesEatingAnimation.LOGGER.debug("GEA: Ignoring chunk for unexpected animation table {}", packet.getHash());
+            return;
+        }
+
+        int total = packet.getTotal();
+        int index = packet.getIndex();
+        if (total <= 0 || total > MAX_TABLE_CHUNKS || index < 0 || index >= total) {
+            GrapesEatingAnimation.LOGGER.warn("GEA: Invalid animation table chunk {}/{}", index, total);
+            resetPendingTable();
+            return;
+        }
+
+        if (pendingTableChunks == null || pendingTableChunks.length != total) {
+            pendingTableChunks = new byte[total][];
+            receivedTableChunks = 0;
+        }
+
+        if (pendingTableChunks[index] == null) {
+            pendingTableChunks[index] = packet.getData();
+            receivedTableChunks++;
+        }
+
+        if (receivedTableChunks < total) {
+            return;
+        }
+
+        String hash = pendingTableHash;
+        ByteArrayOutputStream assembled = new ByteArrayOutputStream();
+        for (byte[] chunk : pendingTableChunks) {
+            assembled.writeBytes(chunk);
+        }
+        resetPendingTable();
+
+        byte[] data = assembled.toByteArray();
+        if (!AnimationTableCodec.hash(data).equals(hash)) {
+            GrapesEatingAnimation.LOGGER.warn("GEA: Received animation table does not match hash {}, ignoring", hash);
+            return;
+        }
+
+        try {
+            applyServerTable(AnimationTableCodec.decode(data));
+            Util.ioPool().execute(() -> writeCachedTable(hash, data));
+        } catch (IOException e) {
+            GrapesEatingAnimation.LOGGER.error("GEA: Failed to decode server animation table {}", hash, e);
+        }
+    }
+
+    private static void applyServerTable(Map<String, List<String>> table) {
+        EatingAnimationConfig.applyServerAnimations(table);
+
+        int missingFrames = EatingItemModelOverride.countUnregisteredFrames(table);
+        if (missingFrames > 0) {
+            GrapesEatingAnimation.LOGGER.info("GEA: {} frames from the server animation table have no loaded model yet; they will appear after the next resource reload",
+                    missingFrames);
+        }
+    }
+
+    private static void resetPendingTable() {
+        pendingTableHash = null;
+        pendingTableChunks = null;
+        receivedTableChunks = 0;
+    }
+
+    private static Map<String, List<String>> readCachedTable(String hash) {
+        Path file = TABLE_CACHE_DIR.resolve(hash + ".bin");
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        try {
+            byte[] data = Files.readAllBytes(file);
+            if (!AnimationTableCodec.hash(data).equals(hash)) {
+                GrapesEatingAnimation.LOGGER.warn("GEA: Cached animation table {} is corrupt, deleting", hash);
+                Files.deleteIfExists(file);
+                return null;
+            }
+
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return AnimationTableCodec.decode(data);
+        } catch (IOException e) {
+            GrapesEatingAnimation.LOGGER.warn("GEA: Failed to read cached animation table {}: {}", hash, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void writeCachedTable(String hash, byte[] data) {
+        try {
+            Files.createDirectories(TABLE_CACHE_DIR);
+            Path temp = TABLE_CACHE_DIR.resolve(hash + ".tmp");
+            Files.write(temp, data);
+            Files.move(temp, TABLE_CACHE_DIR.resolve(hash + ".bin"), StandardCopyOption.REPLACE_EXISTING);
+            pruneTableCache();
+        } catch (IOException e) {
+            GrapesEatingAnimation.LOGGER.warn("GEA: Failed to cache animation table {}: {}", hash, e.getMessage());
+        }
+    }
+
+    private static void pruneTableCache() throws IOException {
+        List<Path> cached;
+        try (Stream<Path> files = Files.list(TABLE_CACHE_DIR)) {
+            cached = files.filter(path -> path.getFileName().toString().endsWith(".bin"))
+                    .sorted(Comparator.comparing(ClientNetworkHandler::lastModified).reversed())
+                    .collect(Collectors.toList());
+        }
+
+        for (int i = MAX_CACHED_TABLES; i < cached.size(); i++) {
+            Files.deleteIfExists(cached.get(i));
+        }
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    static List<NetworkHandler.EatingAnimationPacket> getDelayedPackets() {
+        return delayedPackets.stream().map(delayed -> delayed.packet).collect(Collectors.toList());
+    }
+
+    static void discardDelayedPackets(Set<Integer> entityIds) {
+        delayedPackets.removeIf(delayed -> entityIds.contains(delayed.packet.getPlayerId()));
+    }
+
+    public static int getDelayedPacketCount() {
+        return delayedPackets.size();
+    }
+
+    public static long getDroppedPacketCount() {
+        return droppedDelayedPackets;
+    }
+
+    public static long getCoalescedPacketCount() {
+        return incomingPackets.getCoalescedCount();
+    }
+
+    public static long getReceivedPacketCount() {
+        return incomingPackets.getOfferedCount();
+    }
+
     public static void forceInitialization() {
         clientFullyInitialized = true;
         GrapesEatingAnimation.LOGGER.info("GEA: Forced client initialization");
     }
     
     public static String getDebugInfo() {
-        return String.format("ClientNetworkHandler{initialized=%s, ticks=%d, delayedPackets=%d, hasConnectedBefore=%s, timeSinceConnection=%d}",
-                clientFullyInitialized, initializationTicks, delayedPackets.size(), hasConnectedBefore,
-                System.currentTimeMillis() - connectionTime);
+        return String.format("ClientNetworkHandler{initialized=%s, ticks=%d, delayedPackets=%d, droppedPackets=%d, mailboxReceived=%d, mailboxCoalesced=%d, hasConnectedBefore=%s, timeSinceConnection=%d, rttMs=%.1f, rttSamples=%d}",
+                clientFullyInitialized, initializationTicks, delayedPackets.size(), droppedDelayedPackets,
+                incomingPackets.getOfferedCount(), incomingPackets.getCoalescedCount(), hasConnectedBefore,
+                System.currentTimeMillis() - connectionTime, latency.getSmoothedRttNanos() / 1_000_000.0, latency.getSampleCount());
     }
 }
@@ -0,0 +1,125 @@
+package net.grapes.gea;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+// Watches the GEA config files and reloads them on a background thread once edits have settled.
+// Launch with -Dgea.watchConfig=false to disable.
+public class ConfigFileWatcher {
+    private static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("gea.watchConfig"));
+    private static final long DEBOUNCE_MILLIS = 500;
+
+    private static Thread watcherThread = null;
+
+    public static synchronized void start(Path configFile, Path configDir, Runnable reload) {
+        if (!ENABLED || watcherThread != null) {
+            return;
+        }
+
+        WatchService watchService;
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            configFile.getParent().register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            GrapesEatingAnimation.LOGGER.warn("GEA: Config hot reload unavailable: {}", e.getMessage());
+            return;
+        }
+
+        Watcher watcher = new Watcher(watchService, configFile, configDir, reload);
+        watcherThread = new Thread(watcher::run, "GEA Config Watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+        GrapesEatingAnimation.LOGGER.info("GEA: Watching {} and {} for changes", configFile, configDir);
+    }
+
+    private static class Watcher {
+        private final WatchService watchService;
+        private final Path configFile;
+        private final Path configDir;
+        private final Runnable reload;
+        private WatchKey dirKey;
+
+        Watcher(WatchService watchService, Path configFile, Path configDir, Runnable reload) {
+            this.watchService = watchService;
+            this.configFile = configFile;
+            this.configDir = configDir;
+            this.reload = reload;
+            registerConfigDir();
+        }
+
+        void run() {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    if (!processEvents(watchService.take())) {
+                        continue;
+                    }
+
+                    // Editors often write a file several times in a row; wait until it has been quiet for a while.
+                    WatchKey key;
+                    while ((key = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                        processEvents(key);
+                    }
+
+                    GrapesEatingAnimation.LOGGER.info("GEA: Config files changed, reloading animations");
+                    try {
+                        reload.run();
+                    } catch (Exception e) {
+                        GrapesEatingAnimation.LOGGER.error("GEA: Failed to hot reload animation config", e);
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                GrapesEatingAnimation.LOGGER.debug("GEA: Config watcher stopped");
+            }
+        }
+
+        private boolean processEvents(WatchKey key) {
+            boolean relevant = false;
+            boolean inConfigDir = key == dirKey;
+
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    relevant = true;
+                    continue;
+                }
+
+                Path name = (Path) event.context();
+                if (inConfigDir) {
+                    relevant |= name.toString().endsWith(".json");
+                } else if (name.equals(configFile.getFileName())) {
+                    relevant = true;
+                } else if (name.equals(configDir.getFileName())) {
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                        registerConfigDir();
+                    }
+                    relevant = true;
+                }
+            }
+
+            if (!key.reset() && key == dirKey) {
+                dirKey = null;
+            }
+            return relevant;
+        }
+
+        private void registerConfigDir() {
+            if (dirKey != null || !Files.isDirectory(configDir)) {
+                return;
+            }
+            try {
+                dirKey = configDir.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            } catch (IOException e) {
+                GrapesEatingAnimation.LOGGER.warn("GEA: Can't watch {}: {}", configDir, e.getMessage());
+            }
+        }
+    }
+}
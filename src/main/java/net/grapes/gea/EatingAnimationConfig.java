@@ -8,59 +8,369 @@
 
 package net.grapes.gea;
 
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+import net.grapes.gea.core.AnimationConfigCache;
+import net.grapes.gea.core.AnimationConfigLoader;
+import net.grapes.gea.core.AnimationConfigParser;
+import net.grapes.gea.core.AnimationTableCodec;
+import net.grapes.gea.core.AnimationVariants;
+import net.minecraft.Util;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.resources.ResourceManager;
 import net.minecraftforge.common.ForgeConfigSpec;
 import net.minecraftforge.fml.loading.FMLPaths;
 
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.lang.reflect.Type;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 public class EatingAnimationConfig {
     public static final ForgeConfigSpec SPEC;
     private static final ForgeConfigSpec.Builder BUILDER = new ForgeConfigSpec.Builder();
 
-    private static final Gson GSON = new Gson();
+    public static final ForgeConfigSpec.BooleanValue LAZY_FRAME_MODELS = BUILDER
+            .comment("Skip baking a model per animation frame and generate flat item quads from the frame texture on first use.",
+                    "Frame textures are read from <namespace>:textures/item/<path>.png; a frame model's own layer0 and any other",
+                    "layers or elements are ignored, so leave this off for such frames. Requires a resource reload to take effect.")
+            .define("lazyFrameModels", false);
+
+    public static final ForgeConfigSpec.IntValue FRAME_QUAD_CACHE_KB = BUILDER
+            .comment("Maximum size in KiB of generated frame quads kept in memory when lazyFrameModels is enabled.")
+            .defineInRange("frameQuadCacheKb", 4096, 64, 262144);
+
+    public static final ForgeConfigSpec SERVER_SPEC;
+    private static final ForgeConfigSpec.Builder SERVER_BUILDER = new ForgeConfigSpec.Builder();
+
+    public static final ForgeConfigSpec.IntValue OUTBOUND_BYTES_PER_TICK = SERVER_BUILDER
+            .comment("Most bytes of eating animation packets sent to each player per tick. The rest wait for later ticks,",
+                    "nearest eaters first, and a newer update for an eater replaces a waiting one. 0 sends everything at once.")
+            .defineInRange("outboundBytesPerTick", 1024, 0, 1048576);
+
     private static final Path CONFIG_FILE = FMLPaths.CONFIGDIR.get().resolve("gea-animations.json");
+    private static final Path CONFIG_DIR = FMLPaths.CONFIGDIR.get().resolve("gea");
+    private static final Path CACHE_FILE = FMLPaths.CONFIGDIR.get().resolve("gea-animations.cache");
+
+    // Immutable snapshot, replaced as a whole on every (re)load so readers never see a partial update.
+    private static volatile Map<String, List<String>> animationMap = Collections.emptyMap();
+    // The two local sources animationMap is merged from; config files override resource pack definitions.
+    private static Map<String, List<String>> configFileAnimations = Collections.emptyMap();
+    private static Map<String, List<String>> resourcePackAnimations = Collections.emptyMap();
+    // The last parse that was published; a file that fails to parse on reload keeps its definitions from here.
+    private static AnimationConfigLoader.Result lastLoadResult = null;
+    private static volatile CompletableFuture<Map<String, List<String>>> pendingResourcePackAnimations = null;
+    private static final List<Consumer<Set<String>>> changeListeners = new CopyOnWriteArrayList<>();
 
-    private static Map<String, List<String>> animationMap = new HashMap<>();
+    // Table received from the server we're connected to; takes precedence over the local config while set.
+    // The client's resource pack animations (including a server resource pack's) still apply underneath it,
+    // since a server can't see the resource packs its clients load: the server table wins per key.
+    private static volatile Map<String, List<String>> serverAnimationMap = null;
+    private static volatile Map<String, List<String>> mergedServerAnimationMap = null;
+    private static volatile CompiledTable compiledTable = null;
+    private static volatile VariantTable variantTable = null;
+
+    // Started on a worker during common setup; readers join it the first time they need the animations.
+    private static CompletableFuture<Void> initialLoad = null;
+    private static volatile boolean loaded = false;
+    private static long initialLoadNanos = 0;
 
     static {
         SPEC = BUILDER.build();
-        loadConfig();
+        SERVER_SPEC = SERVER_BUILDER.build();
+    }
+
+    public static synchronized void startLoading() {
+        if (loaded || initialLoad != null) {
+            return;
+        }
+
+        initialLoad = CompletableFuture.runAsync(() -> {
+            long startNanos = System.nanoTime();
+            loadConfig();
+            initialLoadNanos = System.nanoTime() - startNanos;
+            GrapesEatingAnimation.LOGGER.info("GEA: Initial config load took {} ms on a background thread", initialLoadNanos / 1_000_000);
+        }, Util.backgroundExecutor());
+    }
+
+    private static void ensureLoaded() {
+        if (loaded || Thread.holdsLock(EatingAnimationConfig.class)) {
+            return;
+        }
+
+        CompletableFuture<Void> pending;
+        synchronized (EatingAnimationConfig.class) {
+            if (loaded) {
+                return;
+            }
+            if (initialLoad == null) {
+                GrapesEatingAnimation.LOGGER.debug("GEA: Animations needed before setup, loading config on {}", Thread.currentThread().getName());
+                loadConfig();
+                return;
+            }
+            pending = initialLoad;
+        }
+
+        long waitStart = System.nanoTime();
+        try {
+            pending.join();
+        } catch (CompletionException e) {
+            GrapesEatingAnimation.LOGGER.error("GEA: Initial config load failed", e.getCause());
+        }
+        long waitedNanos = System.nanoTime() - waitStart;
+        GrapesEatingAnimation.LOGGER.info("GEA: {} waited {} ms for the initial config load ({} ms saved off the startup path)",
+                Thread.currentThread().getName(), waitedNanos / 1_000_000, Math.max(0, initialLoadNanos - waitedNanos) / 1_000_000);
     }
 
     public static void loadConfig() {
+        loadConfig(true);
+    }
+
+    // Without publish, only the config file half of the merge is replaced; a resource reload re-reads the
+    // files in its prepare phase this way and publishes once its resource pack animations are in.
+    private static synchronized void loadConfig(boolean publish) {
         GrapesEatingAnimation.LOGGER.info("GEA: Loading configuration from {}", CONFIG_FILE);
+        GeaJfrEvents.ConfigReload reloadEvent = new GeaJfrEvents.ConfigReload();
+        reloadEvent.begin();
         try {
             if (!Files.exists(CONFIG_FILE)) {
                 GrapesEatingAnimation.LOGGER.info("GEA: Config file doesn't exist, creating default");
                 createDefaultConfig();
             }
 
-            try (FileReader reader = new FileReader(CONFIG_FILE.toFile())) {
-                Type type = new TypeToken<Map<String, List<String>>>(){}.getType();
-                Map<String, List<String>> loadedMap = GSON.fromJson(reader, type);
-                if (loadedMap != null) {
-                    animationMap = loadedMap;
-                    GrapesEatingAnimation.LOGGER.info("GEA: Successfully loaded {} eating animations", animationMap.size());
-                    for (Map.Entry<String, List<String>> entry : animationMap.entrySet()) {
-                        GrapesEatingAnimation.LOGGER.debug("GEA: Animation for {}: {} frames", entry.getKey(), entry.getValue().size());
+            long startNanos = System.nanoTime();
+            List<Path> sourceFiles = getConfigSourceFiles();
+            List<AnimationConfigCache.SourceFingerprint> sources = new ArrayList<>(sourceFiles.size());
+            for (Path sourceFile : sourceFiles) {
+                sources.add(AnimationConfigCache.SourceFingerprint.of(sourceFile));
+            }
+
+            Map<String, List<String>> loadedMap = readConfigCache(sources);
+            boolean fromCache = loadedMap != null;
+
+            if (loadedMap == null) {
+                AnimationConfigLoader.Result result = AnimationConfigLoader.load(sourceFiles, Util.backgroundExecutor(), lastLoadResult);
+                reportLoadResult(result);
+                if (loaded && result.hasLostFiles()) {
+                    // Most likely a file caught mid-save by the watcher; publishing without it would drop its
+                    // items on every client. The next save triggers another reload.
+                    GrapesEatingAnimation.LOGGER.warn("GEA: Keeping the current animations until the config parses again");
+                    return;
+                }
+                lastLoadResult = result;
+                loadedMap = result.animations;
+                if (result.errors.isEmpty()) {
+                    writeConfigCache(sources, loadedMap);
+                }
+            }
+
+            if (loadedMap != null) {
+                configFileAnimations = loadedMap;
+                int changed = publish ? publishAnimations(mergeAnimations(resourcePackAnimations, loadedMap)) : 0;
+                if (reloadEvent.shouldCommit()) {
+                    reloadEvent.source = publish ? "config files" : "config files (resource reload)";
+                    reloadEvent.animations = loadedMap.size();
+                    reloadEvent.files = sourceFiles.size();
+                    reloadEvent.fromCache = fromCache;
+                    reloadEvent.changed = changed;
+                    reloadEvent.commit();
+                }
+                GrapesEatingAnimation.LOGGER.info("GEA: Successfully loaded {} eating animations from {} file(s) via {} in {} ms",
+                        loadedMap.size(), sourceFiles.size(), fromCache ? "compiled cache" : "JSON", (System.nanoTime() - startNanos) / 1_000_000);
+                if (GrapesEatingAnimation.LOGGER.isDebugEnabled()) {
+                    for (Map.Entry<String, List<String>> entry : loadedMap.entrySet()) {
+                        GrapesEatingAnimation.LOGGER.debug("GEA: Animation for {}: {} frames", entry.getKey(),
+                                entry.getValue() != null ? entry.getValue().size() : 0);
                     }
-                } else {
-                    GrapesEatingAnimation.LOGGER.warn("GEA: Loaded config is null, using empty map");
                 }
+            } else {
+                GrapesEatingAnimation.LOGGER.warn("GEA: Loaded config is null, using empty map");
             }
         } catch (IOException e) {
             GrapesEatingAnimation.LOGGER.error("GEA: Failed to load eating animation config", e);
+        } finally {
+            loaded = true;
+        }
+    }
+
+    // Re-reads the config files and reads assets/<namespace>/gea/animations/*.json on the given (background)
+    // executor. Both are published together, once, by applyResourcePackAnimations in the reload's apply phase.
+    public static CompletableFuture<Map<String, List<String>>> prepareResourcePackAnimations(ResourceManager resourceManager, Executor executor) {
+        CompletableFuture<Map<String, List<String>>> future = CompletableFuture.supplyAsync(() -> {
+            if (loaded) {
+                loadConfig(false);
+            } else {
+                ensureLoaded();
+            }
+            return ResourcePackAnimations.load(resourceManager);
+        }, executor);
+        pendingResourcePackAnimations = future;
+        return future;
+    }
+
+    public static synchronized void applyResourcePackAnimations(Map<String, List<String>> animations) {
+        GeaJfrEvents.ConfigReload reloadEvent = new GeaJfrEvents.ConfigReload();
+        reloadEvent.begin();
+        resourcePackAnimations = animations;
+        pendingResourcePackAnimations = null;
+        Map<String, List<String>> serverMap = serverAnimationMap;
+        if (serverMap != null) {
+            mergedServerAnimationMap = Collections.unmodifiableMap(mergeAnimations(animations, serverMap));
+        }
+        int changed = publishAnimations(mergeAnimations(animations, configFileAnimations));
+        if (reloadEvent.shouldCommit()) {
+            reloadEvent.source = "resource packs";
+            reloadEvent.animations = animations.size();
+            reloadEvent.changed = changed;
+            reloadEvent.commit();
+        }
+    }
+
+    // Model registration runs during the same resource reload that is still preparing the resource pack
+    // animations, so it waits for them instead of seeing the previous reload's definitions.
+    public static Map<String, List<String>> getAnimationsForModelLoading() {
+        ensureLoaded();
+        CompletableFuture<Map<String, List<String>>> pending = pendingResourcePackAnimations;
+        if (pending == null) {
+            return getAllAnimations();
+        }
+
+        Map<String, List<String>> packAnimations;
+        try {
+            packAnimations = pending.join();
+        } catch (CompletionException e) {
+            GrapesEatingAnimation.LOGGER.error("GEA: Failed to load resource pack animations", e.getCause());
+            return getAllAnimations();
+        }
+
+        synchronized (EatingAnimationConfig.class) {
+            Map<String, List<String>> serverMap = serverAnimationMap;
+            return mergeAnimations(packAnimations, serverMap != null ? serverMap : configFileAnimations);
+        }
+    }
+
+    private static Map<String, List<String>> mergeAnimations(Map<String, List<String>> packAnimations, Map<String, List<String>> fileAnimations) {
+        if (packAnimations.isEmpty()) {
+            return new HashMap<>(fileAnimations);
+        }
+
+        Map<String, List<String>> merged = new HashMap<>(packAnimations);
+        for (Map.Entry<String, List<String>> entry : fileAnimations.entrySet()) {
+            if (merged.put(entry.getKey(), entry.getValue()) != null) {
+                GrapesEatingAnimation.LOGGER.debug("GEA: Config or server animation for {} overrides the resource pack definition", entry.getKey());
+            }
+        }
+        return merged;
+    }
+
+    private static int publishAnimations(Map<String, List<String>> loadedMap) {
+        Map<String, List<String>> previous = animationMap;
+        animationMap = Collections.unmodifiableMap(loadedMap);
+        compiledTable = null;
+
+        Set<String> changedItems = new HashSet<>();
+        for (Map.Entry<String, List<String>> entry : loadedMap.entrySet()) {
+            if (!previous.containsKey(entry.getKey()) || !Objects.equals(previous.get(entry.getKey()), entry.getValue())) {
+                changedItems.add(entry.getKey());
+            }
+        }
+        for (String itemId : previous.keySet()) {
+            if (!loadedMap.containsKey(itemId)) {
+                changedItems.add(itemId);
+            }
+        }
+
+        if (changedItems.isEmpty()) {
+            GrapesEatingAnimation.LOGGER.debug("GEA: Reloaded config has no changed animations");
+            return 0;
+        }
+
+        GrapesEatingAnimation.LOGGER.debug("GEA: {} animations changed: {}", changedItems.size(), changedItems);
+        Set<String> changed = Collections.unmodifiableSet(changedItems);
+        for (Consumer<Set<String>> listener : changeListeners) {
+            try {
+                listener.accept(changed);
+            } catch (Exception e) {
+                GrapesEatingAnimation.LOGGER.error("GEA: Animation change listener failed", e);
+            }
+        }
+        return changedItems.size();
+    }
+
+    // Listeners run on the thread that loaded the config and receive the ids of added, removed and modified items.
+    public static void addChangeListener(Consumer<Set<String>> listener) {
+        changeListeners.add(listener);
+    }
+
+    public static void startWatching() {
+        ConfigFileWatcher.start(CONFIG_FILE, CONFIG_DIR, EatingAnimationConfig::loadConfig);
+    }
+
+    // The main config first, then config/gea/*.json in file name order; later files override earlier ones.
+    private static List<Path> getConfigSourceFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        files.add(CONFIG_FILE);
+
+        if (Files.isDirectory(CONFIG_DIR)) {
+            try (Stream<Path> entries = Files.list(CONFIG_DIR)) {
+                entries.filter(file -> Files.isRegularFile(file) && file.getFileName().toString().endsWith(".json"))
+                        .sorted(Comparator.comparing(file -> file.getFileName().toString()))
+                        .forEach(files::add);
+            }
+        }
+        return files;
+    }
+
+    private static void reportLoadResult(AnimationConfigLoader.Result result) {
+        for (AnimationConfigLoader.FileError error : result.errors) {
+            GrapesEatingAnimation.LOGGER.error("GEA: {} animation config {}: {}",
+                    error.keptPrevious ? "Keeping the previous definitions from" : "Skipping", error.file, error.message);
+        }
+        for (AnimationConfigLoader.Conflict conflict : result.conflicts) {
+            if (conflict.overriddenFile.equals(conflict.file)) {
+                GrapesEatingAnimation.LOGGER.warn("GEA: {} defines {} more than once, using the last definition", conflict.file, conflict.itemId);
+            } else {
+                GrapesEatingAnimation.LOGGER.warn("GEA: {} overrides the animation for {} from {}", conflict.file, conflict.itemId, conflict.overriddenFile);
+            }
+        }
+        for (AnimationConfigLoader.FileResult file : result.files) {
+            GrapesEatingAnimation.LOGGER.debug("GEA: Parsed {} ({} animations) in {} ms", file.file, file.getEntryCount(), file.parseNanos / 1_000_000);
+        }
+    }
+
+    private static Map<String, List<String>> readConfigCache(List<AnimationConfigCache.SourceFingerprint> sources) {
+        try {
+            Map<String, List<String>> cached = AnimationConfigCache.read(CACHE_FILE, sources);
+            if (cached == null) {
+                GrapesEatingAnimation.LOGGER.debug("GEA: Compiled config cache missing or stale, parsing JSON");
+            }
+            return cached;
+        } catch (IOException e) {
+            GrapesEatingAnimation.LOGGER.warn("GEA: Ignoring unreadable compiled config cache: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static void writeConfigCache(List<AnimationConfigCache.SourceFingerprint> sources, Map<String, List<String>> animations) {
+        try {
+            AnimationConfigCache.write(CACHE_FILE, sources, animations);
+        } catch (IOException e) {
+            GrapesEatingAnimation.LOGGER.warn("GEA: Failed to write compiled config cache: {}", e.getMessage());
         }
     }
 
@@ -71,7 +381,7 @@ public class EatingAnimationConfig {
             defaultConfig.put("minecraft:bread", List.of("anim:bread_0", "anim:bread_1"));
 
             try (FileWriter writer = new FileWriter(CONFIG_FILE.toFile())) {
-                GSON.toJson(defaultConfig, writer);
+                writer.write(AnimationConfigParser.toJson(defaultConfig));
             }
 
             GrapesEatingAnimation.LOGGER.info("Created default eating animation config");
@@ -80,27 +390,135 @@ public class EatingAnimationConfig {
         }
     }
 
-    public static List<String> getAnimationFrames(ResourceLocation itemId) {
-        List<String> frames = animationMap.get(itemId.toString());
-        if (frames != null) {
-            GrapesEatingAnimation.LOGGER.debug("GEA: Found {} frames for item {}", frames.size(), itemId);
-        } else {
-            GrapesEatingAnimation.LOGGER.debug("GEA: No animation found for item {}", itemId);
+    private static Map<String, List<String>> activeAnimations() {
+        ensureLoaded();
+        Map<String, List<String>> serverMap = mergedServerAnimationMap;
+        return serverMap != null ? serverMap : animationMap;
+    }
+
+    public static boolean isLazyFrameModels() {
+        return getOrDefault(LAZY_FRAME_MODELS::get, false);
+    }
+
+    public static long getFrameQuadCacheBytes() {
+        return getOrDefault(FRAME_QUAD_CACHE_KB::get, 4096) * 1024L;
+    }
+
+    public static int getOutboundBytesPerTick() {
+        return getOrDefault(OUTBOUND_BYTES_PER_TICK::get, 1024);
+    }
+
+    private static <T> T getOrDefault(Supplier<T> value, T fallback) {
+        try {
+            return value.get();
+        } catch (IllegalStateException e) {
+            // Config isn't loaded (or registered) yet; server configs only exist while a world is running.
+            return fallback;
         }
-        return frames;
     }
 
+    public static List<String> getAnimationFrames(ResourceLocation itemId) {
+        return activeAnimations().get(itemId.toString());
+    }
+
+    public static List<String> getAnimationFrames(ResourceLocation itemId, int variant) {
+        String key = getAnimationKey(itemId, variant);
+        return key != null ? activeAnimations().get(key) : null;
+    }
+
+    // The table key holding a variant's frames, or null if the item has no such variant.
+    public static String getAnimationKey(ResourceLocation itemId, int variant) {
+        return getVariants().animationKey(itemId.toString(), variant);
+    }
+
+    // True if the item has a plain animation or any NBT variant; which one applies depends on the stack.
     public static boolean hasAnimation(ResourceLocation itemId) {
-        boolean hasAnim = animationMap.containsKey(itemId.toString());
-        GrapesEatingAnimation.LOGGER.debug("GEA: Item {} has animation: {}", itemId, hasAnim);
-        return hasAnim;
+        return getVariants().hasAnimation(itemId.toString());
+    }
+
+    // Compiled on first use after the active table changes (reload or server table), then shared by all threads.
+    public static AnimationVariants getVariants() {
+        Map<String, List<String>> animations = activeAnimations();
+        VariantTable table = variantTable;
+        if (table == null || table.source != animations) {
+            table = new VariantTable(animations, AnimationVariants.compile(animations, (key, reason) ->
+                    GrapesEatingAnimation.LOGGER.warn("GEA: Ignoring animation variant '{}': {}", key, reason)));
+            variantTable = table;
+        }
+        return table.variants;
     }
 
     public static Map<String, List<String>> getAllAnimations() {
-        return new HashMap<>(animationMap);
+        return new HashMap<>(activeAnimations());
+    }
+
+    // Item ids with a plain or variant animation, without the variant keys.
+    public static Set<String> getAnimatedItemIds() {
+        Set<String> itemIds = new LinkedHashSet<>();
+        for (String key : activeAnimations().keySet()) {
+            itemIds.add(AnimationVariants.baseItemId(key));
+        }
+        return itemIds;
+    }
+
+    public static synchronized void applyServerAnimations(Map<String, List<String>> animations) {
+        serverAnimationMap = animations;
+        mergedServerAnimationMap = Collections.unmodifiableMap(mergeAnimations(resourcePackAnimations, animations));
+        GrapesEatingAnimation.LOGGER.info("GEA: Using {} eating animations from server ({} in total with resource packs)",
+                animations.size(), mergedServerAnimationMap.size());
+    }
+
+    public static synchronized void clearServerAnimations() {
+        if (serverAnimationMap != null) {
+            serverAnimationMap = null;
+            mergedServerAnimationMap = null;
+            GrapesEatingAnimation.LOGGER.info("GEA: Cleared server animation table, using local config");
+        }
+    }
+
+    public static boolean isUsingServerAnimations() {
+        return serverAnimationMap != null;
+    }
+
+    // Like getVariants, the table remembers the map it was encoded from, so one compiled from a map that a
+    // concurrent reload has since replaced is never handed out for the new map's hash.
+    public static CompiledTable getCompiledTable() throws IOException {
+        ensureLoaded();
+        Map<String, List<String>> animations = animationMap;
+        CompiledTable table = compiledTable;
+        if (table == null || table.source != animations) {
+            byte[] data = AnimationTableCodec.encode(animations);
+            table = new CompiledTable(animations, data, AnimationTableCodec.hash(data));
+            compiledTable = table;
+            GrapesEatingAnimation.LOGGER.debug("GEA: Compiled animation table - {} animations, {} bytes, hash {}",
+                    animations.size(), data.length, table.hash);
+        }
+        return table;
     }
 
     public static void reloadConfig() {
         loadConfig();
     }
+
+    private static class VariantTable {
+        final Map<String, List<String>> source;
+        final AnimationVariants variants;
+
+        VariantTable(Map<String, List<String>> source, AnimationVariants variants) {
+            this.source = source;
+            this.variants = variants;
+        }
+    }
+
+    public static class CompiledTable {
+        final Map<String, List<String>> source;
+        public final byte[] data;
+        public final String hash;
+
+        CompiledTable(Map<String, List<String>> source, byte[] data, String hash) {
+            this.source = source;
+            this.data = data;
+            this.hash = hash;
+        }
+    }
 }
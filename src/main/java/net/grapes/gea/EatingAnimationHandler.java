@@ -1,33 +1,40 @@
-// TODO: Replace `Player` key with `UUID` in activeAnimations to prevent identity issues.
 // TODO: Implement or remove empty `update(Player)` method in EatingAnimationState.
 // TODO: Reduce repetitive clamping logic for ticks by adding a helper method.
 // TODO: Consider caching config checks like `EatingAnimationConfig.hasAnimation()`.
 // TODO: Avoid over-logging per-frame changes unless debugging.
 // TODO: Evaluate whether enhanced cleanup should run more/less frequently.
-// TODO: Consider removing redundant `null` checks for `player` and `minecraft.level` in `onRenderHand()`.
+// TODO: Consider removing redundant `null` checks for `player` and `minecraft.level` in `tickLocalPlayer()`.
 // TODO: (Optional) Add unit tests for stale/expired logic for robustness.
 
 package net.grapes.gea;
 
+import net.grapes.gea.core.AnimationVariants;
+import net.grapes.gea.core.DoubleBufferedIntMap;
+import net.grapes.gea.core.FrameSelector;
+import net.grapes.gea.core.FrameTimeline;
 import net.minecraft.client.Minecraft;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.util.profiling.ProfilerFiller;
+import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.item.ItemStack;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
-import net.minecraftforge.client.event.RenderHandEvent;
-import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.registries.ForgeRegistries;
 
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @OnlyIn(Dist.CLIENT)
 public class EatingAnimationHandler {
     private static final int MAX_ANIMATION_STATES = 50;
-    private static final ConcurrentHashMap<Player, EatingAnimationState> activeAnimations = new ConcurrentHashMap<>();
+
+    // Keyed by entity id. Written only on the client thread (prediction, packet drain, cleanup);
+    // renderers read the last published buffer.
+    private static final DoubleBufferedIntMap<EatingAnimationState> activeAnimations = new DoubleBufferedIntMap<>();
 
     private static long lastCleanupTime = 0;
     private static final long CLEANUP_INTERVAL = 2000; // 2 seconds
@@ -35,15 +42,23 @@ public class EatingAnimationHandler {
 
     private static int cleanupCount = 0;
 
-    @SubscribeEvent
-    public void onRenderHand(RenderHandEvent event) {
-        Minecraft minecraft = Minecraft.getInstance();
+    // Runs from the client tick, right after incoming packets are drained, so the local player's animation is
+    // predicted in every camera mode and in the inventory preview, not only when the first-person hand renders.
+    // The server doesn't echo the eater's own state back, so this is the only source of it. The caller publishes.
+    public static void tickLocalPlayer(Minecraft minecraft, ProfilerFiller profiler) {
         if (minecraft.player == null || minecraft.level == null) {
             return;
         }
 
+        GeaProfiler.push(profiler, GeaProfiler.UPDATE_ANIMATION);
         updateAnimationState(minecraft.player);
+        GeaProfiler.popPush(profiler, GeaProfiler.CLEANUP);
         performEnhancedCleanup();
+        GeaProfiler.pop(profiler);
+    }
+
+    public static void publishAnimationStates() {
+        activeAnimations.publish();
     }
 
     public static void updateAnimationState(Player player) {
@@ -56,56 +71,62 @@ public class EatingAnimationHandler {
             return;
         }
 
+        int playerId = player.getId();
         ItemStack activeItem = player.getUseItem();
 
         if (activeItem.isEmpty()) {
-            if (activeAnimations.containsKey(player)) {
-                GrapesEatingAnimation.LOGGER.debug("GEA: Removing animation for player - no active item");
-                activeAnimations.remove(player);
+            if (activeAnimations.remove(playerId) != null) {
+                GeaDiagnostics.record(GeaDiagnostics.Event.ANIMATION_CLEARED, playerId);
             }
             return;
         }
 
         ResourceLocation itemId = ForgeRegistries.ITEMS.getKey(activeItem.getItem());
         if (itemId == null) {
-            GrapesEatingAnimation.LOGGER.debug("GEA: Item ID is null for active item");
             return;
         }
 
         if (!EatingAnimationConfig.hasAnimation(itemId)) {
-            if (activeAnimations.containsKey(player)) {
-                GrapesEatingAnimation.LOGGER.debug("GEA: Removing animation - item has no animation config");
-                activeAnimations.remove(player);
+            if (activeAnimations.remove(playerId) != null) {
+                GeaDiagnostics.record(GeaDiagnostics.Event.ANIMATION_CLEARED, playerId);
             }
             return;
         }
 
         if (!player.isUsingItem() || !activeItem.isEdible()) {
-            if (activeAnimations.containsKey(player)) {
-                activeAnimations.remove(player);
-            }
+            activeAnimations.remove(playerId);
             return;
         }
 
         boolean isLocalPlayer = (minecraft.player == player);
 
         if (isLocalPlayer || minecraft.hasSingleplayerServer()) {
-            EatingAnimationState existingState = activeAnimations.get(player);
+            EatingAnimationState existingState = activeAnimations.getWorking(playerId);
 
+            // The variant is resolved when the animation starts and kept on its state for the rest of the use.
             if (existingState == null || !existingState.isValidForItem(itemId)) {
-                if (activeAnimations.size() >= MAX_ANIMATION_STATES) {
+                int variant = AnimationVariantResolver.resolve(activeItem, itemId);
+                if (EatingAnimationConfig.getAnimationKey(itemId, variant) == null) {
+                    // Only variants are configured for this item and none matches the stack; checked again next
+                    // tick, which reads just the paths the variants test.
+                    if (activeAnimations.remove(playerId) != null) {
+                        GeaDiagnostics.record(GeaDiagnostics.Event.ANIMATION_CLEARED, playerId);
+                    }
+                    return;
+                }
+
+                if (activeAnimations.workingSize() >= MAX_ANIMATION_STATES) {
                     performEnhancedCleanup();
 
-                    if (activeAnimations.size() >= MAX_ANIMATION_STATES) {
+                    if (activeAnimations.workingSize() >= MAX_ANIMATION_STATES) {
                         removeOldestAnimation();
                     }
                 }
 
-                GrapesEatingAnimation.LOGGER.info("GEA: Starting new eating animation for {} (duration: {})",
-                        itemId, activeItem.getUseDuration());
-
-                EatingAnimationState newState = new EatingAnimationState(itemId, activeItem.getUseDuration(), player.tickCount);
-                activeAnimations.put(player, newState);
+                EatingAnimationState newState = new EatingAnimationState(itemId, variant, activeItem.getUseDuration(), player.tickCount, false);
+                activeAnimations.put(playerId, newState);
+                GeaDiagnostics.record(GeaDiagnostics.Event.ANIMATION_PREDICTED, playerId, newState.totalDurationTicks,
+                        newState.startTickCount, newState.animationKey);
             }
 
             if (existingState != null) {
@@ -115,22 +136,22 @@ public class EatingAnimationHandler {
     }
 
     private static void removeOldestAnimation() {
-        if (activeAnimations.isEmpty()) return;
+        if (activeAnimations.workingSize() == 0) return;
 
-        Player oldestPlayer = null;
+        Integer oldestPlayerId = null;
         long oldestTime = Long.MAX_VALUE;
 
-        for (Map.Entry<Player, EatingAnimationState> entry : activeAnimations.entrySet()) {
+        for (Map.Entry<Integer, EatingAnimationState> entry : activeAnimations.workingView().entrySet()) {
             long startTime = entry.getValue().startTickCount;
             if (startTime < oldestTime) {
                 oldestTime = startTime;
-                oldestPlayer = entry.getKey();
+                oldestPlayerId = entry.getKey();
             }
         }
 
-        if (oldestPlayer != null) {
-            activeAnimations.remove(oldestPlayer);
-            GrapesEatingAnimation.LOGGER.debug("GEA: Removed oldest animation to make room");
+        if (oldestPlayerId != null) {
+            activeAnimations.remove(oldestPlayerId);
+            GeaDiagnostics.record(GeaDiagnostics.Event.ANIMATION_EVICTED, oldestPlayerId);
         }
     }
 
@@ -144,12 +165,14 @@ public class EatingAnimationHandler {
         lastCleanupTime = currentTime;
         cleanupCount++;
 
+        Minecraft minecraft = Minecraft.getInstance();
         int removedCount = 0;
-        Iterator<Map.Entry<Player, EatingAnimationState>> iterator = activeAnimations.entrySet().iterator();
+        Iterator<Map.Entry<Integer, EatingAnimationState>> iterator = activeAnimations.workingIterator();
 
         while (iterator.hasNext()) {
-            Map.Entry<Player, EatingAnimationState> entry = iterator.next();
-            Player player = entry.getKey();
+            Map.Entry<Integer, EatingAnimationState> entry = iterator.next();
+            Entity entity = minecraft.level != null ? minecraft.level.getEntity(entry.getKey()) : null;
+            Player player = entity instanceof Player ? (Player) entity : null;
             EatingAnimationState state = entry.getValue();
 
             boolean shouldRemove = false;
@@ -180,14 +203,11 @@ public class EatingAnimationHandler {
             }
         }
 
-        if (removedCount > 0 || cleanupCount % 10 == 0) {
-            GrapesEatingAnimation.LOGGER.debug("GEA: Enhanced cleanup #{} - removed {} stale entries. Active: {}/{}",
-                    cleanupCount, removedCount, activeAnimations.size(), MAX_ANIMATION_STATES);
-        }
+        GeaDiagnostics.record(GeaDiagnostics.Event.CLEANUP, removedCount, activeAnimations.workingSize(), 0, null);
     }
 
     public static EatingAnimationState getAnimationState(Player player) {
-        return activeAnimations.get(player);
+        return activeAnimations.get(player.getId());
     }
 
     public static void setAnimationState(Player player, EatingAnimationState state) {
@@ -195,26 +215,77 @@ public class EatingAnimationHandler {
             return;
         }
 
-        if (activeAnimations.size() >= MAX_ANIMATION_STATES) {
+        if (activeAnimations.workingSize() >= MAX_ANIMATION_STATES) {
             performEnhancedCleanup();
         }
 
-        activeAnimations.put(player, state);
-        GrapesEatingAnimation.LOGGER.debug("GEA: Set animation state for player {} with start tick {} for item {}",
-                player.getName().getString(), state.startTickCount, state.itemId);
+        activeAnimations.put(player.getId(), state);
+        GeaDiagnostics.record(GeaDiagnostics.Event.ANIMATION_SET, player.getId(), state.startTickCount, 0, state.animationKey);
+    }
+
+    // Keeps the predicted start so a correction never restarts the animation, only rescales it.
+    public static boolean correctDuration(Player player, ResourceLocation itemId, int useDuration) {
+        EatingAnimationState existing = activeAnimations.getWorking(player.getId());
+        if (existing == null || !existing.isValidForItem(itemId) || existing.totalDurationTicks == useDuration) {
+            return false;
+        }
+
+        activeAnimations.put(player.getId(),
+                new EatingAnimationState(itemId, existing.variant, useDuration, existing.startTickCount, existing.useServerTick));
+        return true;
     }
 
     public static void clearAnimationState(Player player) {
-        EatingAnimationState removed = activeAnimations.remove(player);
+        EatingAnimationState removed = activeAnimations.remove(player.getId());
         if (removed != null) {
-            GrapesEatingAnimation.LOGGER.debug("GEA: Cleared animation state for player {}",
-                    player.getName().getString());
+            GeaDiagnostics.record(GeaDiagnostics.Event.ANIMATION_CLEARED, player.getId());
         }
     }
 
+    public static void onAnimationsChanged(Set<String> changedItems) {
+        Minecraft.getInstance().execute(() -> {
+            if (EatingAnimationConfig.isUsingServerAnimations()) {
+                return;
+            }
+
+            EatingItemModelOverride.invalidateAnimations(changedItems);
+
+            // A changed variant can change which variant applies to the item, so restart by item rather than key.
+            Set<String> changedItemIds = changedItems.stream().map(AnimationVariants::baseItemId).collect(Collectors.toSet());
+            int removed = 0;
+            Iterator<Map.Entry<Integer, EatingAnimationState>> iterator = activeAnimations.workingIterator();
+            while (iterator.hasNext()) {
+                if (changedItemIds.contains(iterator.next().getValue().getItemId())) {
+                    iterator.remove();
+                    removed++;
+                }
+            }
+            activeAnimations.publish();
+
+            long unwrapped = changedItemIds.stream()
+                    .map(ResourceLocation::tryParse)
+                    .filter(itemId -> itemId != null && EatingAnimationConfig.hasAnimation(itemId)
+                            && !EatingItemModelOverride.getWrappedItems().contains(itemId))
+                    .count();
+            GrapesEatingAnimation.LOGGER.info("GEA: Applied {} changed animations, restarted {} active animations", changedItems.size(), removed);
+            if (unwrapped > 0) {
+                GrapesEatingAnimation.LOGGER.info("GEA: {} newly animated items need a resource reload (F3+T) before they animate", unwrapped);
+            }
+        });
+    }
+
+    public static void clearAllAnimationStates() {
+        activeAnimations.clear();
+        activeAnimations.publish();
+    }
+
+    static Map<Integer, EatingAnimationState> getActiveAnimationStates() {
+        return activeAnimations.workingView();
+    }
+
     public static AnimationStats getAnimationStats() {
         return new AnimationStats(
-                activeAnimations.size(),
+                activeAnimations.workingSize(),
                 MAX_ANIMATION_STATES,
                 cleanupCount,
                 System.currentTimeMillis() - lastCleanupTime
@@ -237,23 +308,35 @@ public class EatingAnimationHandler {
 
     public static class EatingAnimationState {
         private final List<String> frames;
+        private final FrameTimeline timeline;
         private final int totalDurationTicks;
         private final int startTickCount;
         private final long creationTime;
         private String lastFrame = null;
         private final boolean useServerTick;
         private final String itemId;
-
-        public EatingAnimationState(ResourceLocation itemId, int useDuration, int serverStartTick, boolean useServerTick) {
-            this.frames = EatingAnimationConfig.getAnimationFrames(itemId);
+        private final int variant;
+        // The animation table key the frames came from: the item id, or the variant key.
+        private final String animationKey;
+
+        public EatingAnimationState(ResourceLocation itemId, int variant, int useDuration, int serverStartTick, boolean useServerTick) {
+            this.animationKey = EatingAnimationConfig.getAnimationKey(itemId, variant);
+            this.frames = animationKey != null ? EatingAnimationConfig.getAnimationFrames(itemId, variant) : null;
+            this.timeline = frames != null && !frames.isEmpty() ?
+                    EatingItemModelOverride.getFrameTimeline(animationKey, frames) : null;
             this.totalDurationTicks = useDuration;
             this.startTickCount = serverStartTick;
             this.creationTime = System.currentTimeMillis();
             this.useServerTick = useServerTick;
             this.itemId = itemId.toString();
+            this.variant = variant;
 
-            GrapesEatingAnimation.LOGGER.info("GEA: Animation state created - {} frames, {} total duration, server tick: {}, use server tick: {}, item: {}",
-                    frames != null ? frames.size() : 0, totalDurationTicks, serverStartTick, useServerTick, this.itemId);
+            GeaDiagnostics.record(GeaDiagnostics.Event.STATE_CREATED, frames != null ? frames.size() : 0, totalDurationTicks,
+                    serverStartTick, this.animationKey);
+        }
+
+        public EatingAnimationState(ResourceLocation itemId, int useDuration, int serverStartTick, boolean useServerTick) {
+            this(itemId, AnimationVariants.BASE_VARIANT, useDuration, serverStartTick, useServerTick);
         }
 
         public EatingAnimationState(ResourceLocation itemId, int useDuration, int startTick) {
@@ -287,51 +370,20 @@ public class EatingAnimationHandler {
             }
 
             int currentTick = player.tickCount;
-            int elapsedTicks;
+            int elapsedTicks = FrameSelector.clampElapsed(
+                    FrameSelector.elapsedTicks(currentTick, startTickCount, useServerTick), totalDurationTicks);
 
-            if (useServerTick) {
-                elapsedTicks = Math.max(0, currentTick - startTickCount);
-
-                if (elapsedTicks < 0) {
-                    GrapesEatingAnimation.LOGGER.debug("GEA: Negative elapsed ticks detected, using 0. Current: {}, Start: {}",
-                            currentTick, startTickCount);
-                    elapsedTicks = 0;
-                }
-            } else {
-                elapsedTicks = currentTick - startTickCount;
-            }
-
-            elapsedTicks = Math.max(0, Math.min(elapsedTicks, totalDurationTicks - 1));
-
-            int currentFrameIndex = calculateFrameIndex(elapsedTicks);
-            String frame = frames.get(currentFrameIndex);
+            int currentFrameIndex = timeline.segmentAt(elapsedTicks, totalDurationTicks);
+            String frame = timeline.getFrame(currentFrameIndex);
 
             if (!frame.equals(lastFrame)) {
-                GrapesEatingAnimation.LOGGER.debug("GEA: Animation frame changed to: {} (index: {}, elapsed ticks: {}, start: {}, current: {}, server mode: {})",
-                        frame, currentFrameIndex, elapsedTicks, startTickCount, currentTick, useServerTick);
+                GeaDiagnostics.record(GeaDiagnostics.Event.FRAME_CHANGED, currentFrameIndex, elapsedTicks, startTickCount, frame);
                 lastFrame = frame;
             }
 
             return frame;
         }
 
-        private int calculateFrameIndex(int elapsedTicks) {
-            if (frames.size() <= 1) {
-                return 0;
-            }
-
-            if (totalDurationTicks <= 1) {
-                return frames.size() - 1;
-            }
-
-            elapsedTicks = Math.max(0, Math.min(elapsedTicks, totalDurationTicks - 1));
-
-            int frameIndex = (elapsedTicks * frames.size()) / totalDurationTicks;
-            frameIndex = Math.min(frameIndex, frames.size() - 1);
-
-            return frameIndex;
-        }
-
         public String getCurrentFrame() {
             Minecraft minecraft = Minecraft.getInstance();
             return getCurrentFrame(minecraft.player);
@@ -342,9 +394,7 @@ public class EatingAnimationHandler {
                 return true;
             }
 
-            int elapsedTicks = useServerTick ?
-                    Math.max(0, player.tickCount - startTickCount) :
-                    player.tickCount - startTickCount;
+            int elapsedTicks = FrameSelector.elapsedTicks(player.tickCount, startTickCount, useServerTick);
             return elapsedTicks >= totalDurationTicks;
         }
 
@@ -374,10 +424,7 @@ public class EatingAnimationHandler {
             if (player == null) {
                 return 0;
             }
-            int elapsed = useServerTick ?
-                    Math.max(0, player.tickCount - startTickCount) :
-                    player.tickCount - startTickCount;
-            return Math.max(0, elapsed);
+            return Math.max(0, FrameSelector.elapsedTicks(player.tickCount, startTickCount, useServerTick));
         }
 
         public int getElapsedTicks() {
@@ -404,5 +451,13 @@ public class EatingAnimationHandler {
         public String getItemId() {
             return itemId;
         }
+
+        public int getVariant() {
+            return variant;
+        }
+
+        public String getAnimationKey() {
+            return animationKey;
+        }
     }
 }
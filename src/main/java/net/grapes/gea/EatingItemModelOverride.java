@@ -2,7 +2,6 @@
 // TODO: Make performCacheCleanup() and related cache modification synchronized or atomic to prevent race conditions.
 // TODO: Simplify LRU eviction logic by using a LinkedHashMap with accessOrder=true and overriding removeEldestEntry.
 // TODO: Add more robust null-checks and fail-safe behavior around Minecraft.getModelManager() and its usage.
-// TODO: Validate if current NAMESPACE_PATTERN and PATH_PATTERN fully align with Minecraft's actual ResourceLocation parsing rules.
 // TODO: Reduce debug log spam—wrap verbose logs in a config flag or check for debug mode.
 // TODO: Consider wrapping more methods in EatingAnimatedBakedModel if visual inconsistencies appear in animated models.
 // TODO: Evaluate if cache stats (e.g. CacheStats) should track hits/misses for further tuning.
@@ -11,6 +10,9 @@
 
 package net.grapes.gea;
 
+import net.grapes.gea.core.AnimationVariants;
+import net.grapes.gea.core.FrameTimeline;
+import net.grapes.gea.core.ResourceLocations;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.multiplayer.ClientLevel;
 import net.minecraft.client.renderer.block.model.ItemOverrides;
@@ -20,6 +22,7 @@ import net.minecraft.client.resources.model.ModelResourceLocation;
 import net.minecraft.core.Direction;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.util.RandomSource;
+import net.minecraft.util.profiling.ProfilerFiller;
 import net.minecraft.world.entity.LivingEntity;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.item.ItemStack;
@@ -34,7 +37,8 @@ import net.minecraftforge.registries.ForgeRegistries;
 import javax.annotation.Nullable;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 
 @OnlyIn(Dist.CLIENT)
 @Mod.EventBusSubscriber(modid = GrapesEatingAnimation.MODID, bus = Mod.EventBusSubscriber.Bus.MOD, value = Dist.CLIENT)
@@ -44,14 +48,20 @@ public class EatingItemModelOverride {
     private static final long CACHE_CLEANUP_INTERVAL = 30_000L; // 30 seconds
     private static final long CACHE_ENTRY_TTL = 300_000L; // 5 minutes
 
-    private static final Pattern NAMESPACE_PATTERN = Pattern.compile("[a-z0-9_.-]+");
-    private static final Pattern PATH_PATTERN = Pattern.compile("[a-z0-9_./-]+");
-
     private static final ConcurrentHashMap<String, CachedModel> frameModelCache = new ConcurrentHashMap<>();
     private static final ConcurrentHashMap<String, Long> accessTimes = new ConcurrentHashMap<>();
 
     private static volatile long lastCacheCleanup = 0;
+
+    private static final LongAdder resolveCalls = new LongAdder();
+    private static final LongAdder cacheHits = new LongAdder();
+    private static final LongAdder cacheMisses = new LongAdder();
     private static volatile boolean modelsRegistered = false;
+    private static volatile Set<String> registeredFrameNames = Collections.emptySet();
+    // Captured at registration so a config change only takes effect with the next resource reload.
+    private static volatile boolean lazyFrameModels = false;
+    private static final ConcurrentHashMap<String, FrameTimeline> frameTimelines = new ConcurrentHashMap<>();
+    private static volatile Set<ResourceLocation> wrappedItems = Collections.emptySet();
 
     private static class CachedModel {
         final BakedModel model;
@@ -79,53 +89,90 @@ public class EatingItemModelOverride {
         clearCache();
 
         try {
-            Map<String, List<String>> animations = EatingAnimationConfig.getAllAnimations();
+            Map<String, List<String>> animations = EatingAnimationConfig.getAnimationsForModelLoading();
             if (animations.isEmpty()) {
                 GrapesEatingAnimation.LOGGER.warn("GEA: No animations configured");
                 return;
             }
 
-            Set<String> registeredFrames = new HashSet<>();
-            int totalFrames = 0;
+            long startTime = System.nanoTime();
 
-            for (Map.Entry<String, List<String>> entry : animations.entrySet()) {
-                String itemId = entry.getKey();
-                List<String> frames = entry.getValue();
+            Map<Boolean, List<Map.Entry<String, List<String>>>> byPresence = animations.entrySet().parallelStream()
+                    .collect(Collectors.partitioningBy(entry -> isItemPresent(entry.getKey())));
+            List<Map.Entry<String, List<String>>> presentItems = byPresence.get(true);
+            List<Map.Entry<String, List<String>>> absentItems = byPresence.get(false);
+
+            Set<String> registeredFrames = ConcurrentHashMap.newKeySet();
+            LongAdder invalidFrames = new LongAdder();
+            LongAdder duplicateFrames = new LongAdder();
 
+            presentItems.parallelStream().forEach(entry -> {
+                List<String> frames = entry.getValue();
                 if (frames == null || frames.isEmpty()) {
-                    GrapesEatingAnimation.LOGGER.warn("GEA: No frames found for item: {}", itemId);
-                    continue;
+                    GrapesEatingAnimation.LOGGER.warn("GEA: No frames found for item: {}", entry.getKey());
+                    return;
                 }
 
                 for (String frameName : frames) {
-                    if (frameName == null || frameName.trim().isEmpty()) {
-                        GrapesEatingAnimation.LOGGER.warn("GEA: Invalid frame name for item {}: '{}'", itemId, frameName);
-                        continue;
+                    if (!isValidResourceLocation(frameName)) {
+                        invalidFrames.increment();
+                        GrapesEatingAnimation.LOGGER.warn("GEA: Invalid frame name for item {}: '{}'", entry.getKey(), frameName);
+                    } else if (!registeredFrames.add(frameName)) {
+                        duplicateFrames.increment();
+                    }
+                }
+            });
+
+            long validationNanos = System.nanoTime() - startTime;
+
+            lazyFrameModels = EatingAnimationConfig.isLazyFrameModels();
+
+            int totalFrames = 0;
+            if (lazyFrameModels) {
+                GrapesEatingAnimation.LOGGER.info("GEA: Lazy frame models enabled, {} frame models will be generated on first use instead of baked",
+                        registeredFrames.size());
+            } else {
+                for (String frameName : registeredFrames) {
+                    if (registerFrameModel(event, frameName)) {
+                        totalFrames++;
                     }
+                }
+            }
 
-                    if (registeredFrames.add(frameName)) {
-                        if (registerFrameModel(event, frameName)) {
-                            totalFrames++;
+            Set<String> skippedFrames = new HashSet<>();
+            for (Map.Entry<String, List<String>> entry : absentItems) {
+                if (entry.getValue() != null) {
+                    for (String frameName : entry.getValue()) {
+                        if (frameName != null && !registeredFrames.contains(frameName)) {
+                            skippedFrames.add(frameName);
                         }
                     }
                 }
             }
 
+            registeredFrameNames = registeredFrames;
             GrapesEatingAnimation.LOGGER.info("GEA: Successfully registered {} unique frame models for {} items",
-                    totalFrames, animations.size());
+                    totalFrames, presentItems.size());
+            GrapesEatingAnimation.LOGGER.info("GEA: Skipped {} items that aren't installed and {} duplicate and {} invalid frame entries; avoided baking {} frame models (validation took {} ms)",
+                    absentItems.size(), duplicateFrames.sum(), invalidFrames.sum(), skippedFrames.size(),
+                    validationNanos / 1_000_000);
 
         } catch (Exception e) {
             GrapesEatingAnimation.LOGGER.error("GEA: Critical error during model registration", e);
         }
     }
 
+    // Variant keys count as present when their item is.
+    private static boolean isItemPresent(String itemKey) {
+        String itemId = AnimationVariants.baseItemId(itemKey);
+        if (!isValidResourceLocation(itemId)) {
+            return false;
+        }
+        return ForgeRegistries.ITEMS.containsKey(new ResourceLocation(itemId));
+    }
+
     private static boolean registerFrameModel(ModelEvent.RegisterAdditional event, String frameName) {
         try {
-            if (!isValidResourceLocation(frameName)) {
-                GrapesEatingAnimation.LOGGER.warn("GEA: Invalid ResourceLocation format: {}", frameName);
-                return false;
-            }
-
             ResourceLocation frameLocation = new ResourceLocation(frameName);
             ModelResourceLocation frameModelLocation = new ModelResourceLocation(
                     frameLocation.getNamespace(),
@@ -146,29 +193,94 @@ public class EatingItemModelOverride {
     @SubscribeEvent
     public static void onModelBake(ModelEvent.ModifyBakingResult event) {
         GrapesEatingAnimation.LOGGER.info("GEA: Model baking event triggered");
+        GeaJfrEvents.ModelWrap wrapEvent = new GeaJfrEvents.ModelWrap();
+        wrapEvent.begin();
 
         try {
             Map<ResourceLocation, BakedModel> modelRegistry = event.getModels();
             clearCache();
             modelsRegistered = true;
 
-            Map<String, List<String>> animations = EatingAnimationConfig.getAllAnimations();
+            Map<String, List<String>> animations = EatingAnimationConfig.getAnimationsForModelLoading();
             GrapesEatingAnimation.LOGGER.info("GEA: Processing {} animated items", animations.size());
 
             int successCount = 0;
-            for (String itemKey : animations.keySet()) {
-                if (wrapItemModel(modelRegistry, itemKey)) {
+            int absentCount = 0;
+            Set<ResourceLocation> wrapped = new HashSet<>();
+            // One wrapper per item serves all of its variants; the animation state picks the frames.
+            Set<String> itemKeys = new LinkedHashSet<>();
+            for (String key : animations.keySet()) {
+                itemKeys.add(AnimationVariants.baseItemId(key));
+            }
+            for (String itemKey : itemKeys) {
+                if (!isItemPresent(itemKey)) {
+                    absentCount++;
+                } else if (wrapItemModel(modelRegistry, itemKey)) {
+                    wrapped.add(new ResourceLocation(itemKey));
                     successCount++;
                 }
             }
+            wrappedItems = wrapped;
 
-            GrapesEatingAnimation.LOGGER.info("GEA: Successfully wrapped {} item models", successCount);
+            GrapesEatingAnimation.LOGGER.info("GEA: Successfully wrapped {} item models ({} configured items not installed)",
+                    successCount, absentCount);
+
+            compileFrameTimelines(modelRegistry, animations);
+
+            if (wrapEvent.shouldCommit()) {
+                wrapEvent.configured = animations.size();
+                wrapEvent.wrapped = successCount;
+                wrapEvent.absent = absentCount;
+                wrapEvent.lazyFrameModels = lazyFrameModels;
+                wrapEvent.commit();
+            }
 
         } catch (Exception e) {
             GrapesEatingAnimation.LOGGER.error("GEA: Critical error during model baking", e);
         }
     }
 
+    private static void compileFrameTimelines(Map<ResourceLocation, BakedModel> modelRegistry, Map<String, List<String>> animations) {
+        frameTimelines.clear();
+
+        Map<String, BakedModel> canonicalModels = Collections.emptyMap();
+        if (!lazyFrameModels) {
+            FrameModelDeduplicator.Result result = FrameModelDeduplicator.deduplicate(modelRegistry, registeredFrameNames);
+            canonicalModels = result.canonicalModels;
+            GrapesEatingAnimation.LOGGER.info("GEA: Deduplicated frame models - {} unique, {} duplicates shared, ~{} KiB of quad data saved",
+                    result.uniqueModels, result.duplicateModels, result.savedBytes / 1024);
+        }
+
+        Map<String, BakedModel> models = canonicalModels;
+        int collapsedFrames = 0;
+        for (Map.Entry<String, List<String>> entry : animations.entrySet()) {
+            if (entry.getValue() == null || entry.getValue().isEmpty()) {
+                continue;
+            }
+
+            FrameTimeline timeline = FrameTimeline.compile(entry.getValue(), (previous, next) ->
+                    previous.equals(next) || (models.get(previous) != null && models.get(previous) == models.get(next)));
+            frameTimelines.put(entry.getKey(), timeline);
+            collapsedFrames += timeline.getCollapsedFrameCount();
+        }
+
+        GrapesEatingAnimation.LOGGER.info("GEA: Collapsed {} repeated consecutive frames across {} animations",
+                collapsedFrames, frameTimelines.size());
+    }
+
+    public static void invalidateAnimations(Set<String> itemIds) {
+        frameTimelines.keySet().removeAll(itemIds);
+    }
+
+    public static FrameTimeline getFrameTimeline(String itemId, List<String> frames) {
+        FrameTimeline timeline = frameTimelines.get(itemId);
+        if (timeline == null || !timeline.getSource().equals(frames)) {
+            timeline = FrameTimeline.compile(frames);
+            frameTimelines.put(itemId, timeline);
+        }
+        return timeline;
+    }
+
     private static boolean wrapItemModel(Map<ResourceLocation, BakedModel> modelRegistry, String itemKey) {
         try {
             if (!isValidResourceLocation(itemKey)) {
@@ -195,9 +307,27 @@ public class EatingItemModelOverride {
         }
     }
 
+    public static int countUnregisteredFrames(Map<String, List<String>> animations) {
+        if (lazyFrameModels) {
+            return 0;
+        }
+
+        Set<String> registered = registeredFrameNames;
+        Set<String> missing = new HashSet<>();
+        for (List<String> frames : animations.values()) {
+            for (String frame : frames) {
+                if (!registered.contains(frame)) {
+                    missing.add(frame);
+                }
+            }
+        }
+        return missing.size();
+    }
+
     public static void clearCache() {
         frameModelCache.clear();
         accessTimes.clear();
+        LazyFrameModels.clear();
         GrapesEatingAnimation.LOGGER.debug("GEA: Frame model cache cleared");
     }
 
@@ -259,47 +389,65 @@ public class EatingItemModelOverride {
     }
 
     private static boolean isValidResourceLocation(String location) {
-        if (location == null || location.trim().isEmpty()) {
-            return false;
-        }
+        return ResourceLocations.isValid(location);
+    }
 
-        int colonIndex = location.indexOf(':');
-        if (colonIndex <= 0 || colonIndex >= location.length() - 1) {
-            return false;
-        }
+    static Set<ResourceLocation> getWrappedItems() {
+        return wrappedItems;
+    }
 
-        String namespace = location.substring(0, colonIndex);
-        String path = location.substring(colonIndex + 1);
+    static Set<String> getRegisteredFrameNames() {
+        return registeredFrameNames;
+    }
+
+    static boolean isLazyFrameModels() {
+        return lazyFrameModels;
+    }
 
-        return NAMESPACE_PATTERN.matcher(namespace).matches() &&
-                PATH_PATTERN.matcher(path).matches();
+    static int getAccessTimesSize() {
+        return accessTimes.size();
     }
 
     public static CacheStats getCacheStats() {
+        boolean lazy = lazyFrameModels;
         return new CacheStats(
-                frameModelCache.size(),
+                lazy ? LazyFrameModels.getCachedModelCount() : frameModelCache.size(),
                 MAX_CACHE_SIZE,
-                System.currentTimeMillis() - lastCacheCleanup
+                System.currentTimeMillis() - lastCacheCleanup,
+                cacheHits.sum() + (lazy ? LazyFrameModels.getHitCount() : 0),
+                cacheMisses.sum() + (lazy ? LazyFrameModels.getMissCount() : 0)
         );
     }
 
+    private static long getFrameCacheMisses() {
+        return lazyFrameModels ? LazyFrameModels.getMissCount() : cacheMisses.sum();
+    }
+
+    public static long getResolveCount() {
+        return resolveCalls.sum();
+    }
+
     public static class CacheStats {
         public final int currentSize;
         public final int maxSize;
         public final long timeSinceLastCleanup;
         public final double loadFactor;
+        public final long hits;
+        public final long misses;
 
-        CacheStats(int currentSize, int maxSize, long timeSinceLastCleanup) {
+        CacheStats(int currentSize, int maxSize, long timeSinceLastCleanup, long hits, long misses) {
             this.currentSize = currentSize;
             this.maxSize = maxSize;
             this.timeSinceLastCleanup = timeSinceLastCleanup;
             this.loadFactor = maxSize > 0 ? (double) currentSize / maxSize : 0.0;
+            this.hits = hits;
+            this.misses = misses;
         }
 
         @Override
         public String toString() {
-            return String.format("CacheStats{size=%d/%d (%.1f%%), lastCleanup=%dms ago}",
-                    currentSize, maxSize, loadFactor * 100, timeSinceLastCleanup);
+            return String.format("CacheStats{size=%d/%d (%.1f%%), hits=%d, misses=%d, lastCleanup=%dms ago}",
+                    currentSize, maxSize, loadFactor * 100, hits, misses, timeSinceLastCleanup);
         }
     }
 
@@ -366,6 +514,19 @@ public class EatingItemModelOverride {
 
         @Override
         public BakedModel resolve(BakedModel model, ItemStack stack, @Nullable ClientLevel world, @Nullable LivingEntity entity, int seed) {
+            ProfilerFiller profiler = Minecraft.getInstance().getProfiler();
+            GeaProfiler.push(profiler, GeaProfiler.RESOLVE);
+            long startNanos = GeaFrameTimer.start();
+            resolveCalls.increment();
+            try {
+                return resolveOverride(model, stack, world, entity, seed);
+            } finally {
+                GeaFrameTimer.stop(startNanos);
+                GeaProfiler.pop(profiler);
+            }
+        }
+
+        private BakedModel resolveOverride(BakedModel model, ItemStack stack, @Nullable ClientLevel world, @Nullable LivingEntity entity, int seed) {
             if (!modelsRegistered || !(entity instanceof Player)) {
                 return originalOverrides.resolve(model, stack, world, entity, seed);
             }
@@ -379,7 +540,7 @@ public class EatingItemModelOverride {
             }
 
             try {
-                BakedModel animatedModel = resolveAnimatedModel(player, stack);
+                BakedModel animatedModel = resolveAnimatedModel(model, player, stack);
                 return animatedModel != null ? animatedModel : originalOverrides.resolve(model, stack, world, entity, seed);
             } catch (Exception e) {
                 GrapesEatingAnimation.LOGGER.warn("GEA: Error during model resolution for player {}: {}",
@@ -389,7 +550,7 @@ public class EatingItemModelOverride {
         }
 
         @Nullable
-        private BakedModel resolveAnimatedModel(Player player, ItemStack stack) {
+        private BakedModel resolveAnimatedModel(BakedModel model, Player player, ItemStack stack) {
             if (!player.isUsingItem()) {
                 return null;
             }
@@ -413,12 +574,21 @@ public class EatingItemModelOverride {
                 return null;
             }
 
-            BakedModel frameModel = resolveFrameModelCached(currentFrame);
-            if (frameModel != null) {
-                GrapesEatingAnimation.LOGGER.debug("GEA: Using frame model: {} for player: {} eating {}",
-                        currentFrame, player.getName().getString(), itemId);
-            }
+            GeaJfrEvents.FrameResolve resolveEvent = new GeaJfrEvents.FrameResolve();
+            long missesBefore = resolveEvent.isEnabled() ? getFrameCacheMisses() : 0;
+            resolveEvent.begin();
+
+            BakedModel frameModel = lazyFrameModels ?
+                    LazyFrameModels.getFrameModel(currentFrame, model) :
+                    resolveFrameModelCached(currentFrame);
 
+            resolveEvent.end();
+            if (resolveEvent.shouldCommit()) {
+                resolveEvent.frame = currentFrame;
+                resolveEvent.cacheHit = getFrameCacheMisses() == missesBefore;
+                resolveEvent.found = frameModel != null;
+                resolveEvent.commit();
+            }
             return frameModel;
         }
 
@@ -445,9 +615,12 @@ public class EatingItemModelOverride {
             if (cached != null && !cached.isExpired(currentTime)) {
                 cached.updateAccess(currentTime);
                 accessTimes.put(frameName, cached.lastAccessed);
+                cacheHits.increment();
                 return cached.model;
             }
 
+            cacheMisses.increment();
+
             BakedModel frameModel = loadFrameModel(frameName);
             if (frameModel != null) {
                 cacheFrameModel(frameName, frameModel, currentTime);
@@ -480,13 +653,9 @@ public class EatingItemModelOverride {
                 BakedModel frameModel = minecraft.getModelManager().getModel(frameModelLocation);
                 BakedModel missingModel = minecraft.getModelManager().getMissingModel();
 
-                if (frameModel != null && frameModel != missingModel) {
-                    GrapesEatingAnimation.LOGGER.debug("GEA: Successfully loaded frame model: {}", frameModelLocation);
-                    return frameModel;
-                } else {
-                    GrapesEatingAnimation.LOGGER.debug("GEA: Frame model not found: {}", frameModelLocation);
-                    return null;
-                }
+                boolean found = frameModel != null && frameModel != missingModel;
+                GeaDiagnostics.record(GeaDiagnostics.Event.FRAME_MODEL_LOADED, found ? 1 : 0, frameName);
+                return found ? frameModel : null;
             } catch (Exception e) {
                 GrapesEatingAnimation.LOGGER.warn("GEA: Error loading frame model for {}: {}", frameName, e.getMessage());
                 return null;
@@ -502,7 +671,6 @@ public class EatingItemModelOverride {
                 CachedModel cachedModel = new CachedModel(frameModel);
                 frameModelCache.put(frameName, cachedModel);
                 accessTimes.put(frameName, currentTime);
-                GrapesEatingAnimation.LOGGER.debug("GEA: Cached frame model: {}", frameName);
             }
         }
     }
@@ -0,0 +1,185 @@
+package net.grapes.gea;
+
+import net.minecraft.client.renderer.RenderType;
+import net.minecraft.client.renderer.block.model.BakedQuad;
+import net.minecraft.client.renderer.block.model.ItemOverrides;
+import net.minecraft.client.renderer.block.model.ItemTransform;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import net.minecraft.client.resources.model.BakedModel;
+import net.minecraft.client.resources.model.ModelResourceLocation;
+import net.minecraft.core.Direction;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.item.ItemDisplayContext;
+import net.minecraft.world.item.ItemStack;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+// Collapses structurally identical frame models (same quads, sprites, transforms and flags) into one
+// shared instance at bake time, so configs that reuse frames don't keep duplicate quad data alive.
+@OnlyIn(Dist.CLIENT)
+class FrameModelDeduplicator {
+
+    private static final Direction[] QUAD_SIDES = {null, Direction.DOWN, Direction.UP, Direction.NORTH, Direction.SOUTH, Direction.WEST, Direction.EAST};
+
+    static class Result {
+        final Map<String, BakedModel> canonicalModels = new HashMap<>();
+        int uniqueModels = 0;
+        int duplicateModels = 0;
+        long savedBytes = 0;
+    }
+
+    static Result deduplicate(Map<ResourceLocation, BakedModel> modelRegistry, Set<String> frameNames) {
+        Result result = new Result();
+        Map<ModelKey, BakedModel> pool = new HashMap<>();
+
+        for (String frameName : frameNames) {
+            ModelResourceLocation location = frameModelLocation(frameName);
+            BakedModel model = modelRegistry.get(location);
+            if (model == null) {
+                continue;
+            }
+
+            ModelKey key = ModelKey.of(model);
+            if (key == null) {
+                result.canonicalModels.put(frameName, model);
+                result.uniqueModels++;
+                continue;
+            }
+
+            BakedModel canonical = pool.putIfAbsent(key, model);
+            if (canonical == null) {
+                result.canonicalModels.put(frameName, model);
+                result.uniqueModels++;
+            } else {
+                modelRegistry.put(location, canonical);
+                result.canonicalModels.put(frameName, canonical);
+                result.duplicateModels++;
+                result.savedBytes += key.estimatedBytes;
+            }
+        }
+
+        return result;
+    }
+
+    static ModelResourceLocation frameModelLocation(String frameName) {
+        ResourceLocation frameLocation = new ResourceLocation(frameName);
+        return new ModelResourceLocation(frameLocation.getNamespace(), frameLocation.getPath(), "inventory");
+    }
+
+    private static final class ModelKey {
+        private final Class<?> type;
+        private final boolean ambientOcclusion;
+        private final boolean gui3d;
+        private final boolean blockLight;
+        private final TextureAtlasSprite particle;
+        private final List<ItemTransform> transforms;
+        private final List<RenderType> renderTypes;
+        private final List<QuadKey> quads;
+        private final int hash;
+        private final long estimatedBytes;
+
+        private ModelKey(BakedModel model, List<ItemTransform> transforms, List<QuadKey> quads, long estimatedBytes) {
+            this.type = model.getClass();
+            this.ambientOcclusion = model.useAmbientOcclusion();
+            this.gui3d = model.isGui3d();
+            this.blockLight = model.usesBlockLight();
+            this.particle = model.getParticleIcon();
+            this.transforms = transforms;
+            this.renderTypes = model.getRenderTypes(ItemStack.EMPTY, false);
+            this.quads = quads;
+            this.estimatedBytes = estimatedBytes;
+            this.hash = Objects.hash(type, ambientOcclusion, gui3d, blockLight, particle, transforms, renderTypes, quads);
+        }
+
+        @Nullable
+        static ModelKey of(BakedModel model) {
+            if (model.isCustomRenderer() || model.getOverrides() != ItemOverrides.EMPTY) {
+                return null;
+            }
+
+            List<ItemTransform> transforms = new ArrayList<>();
+            for (ItemDisplayContext context : ItemDisplayContext.values()) {
+                transforms.add(model.getTransforms().getTransform(context));
+            }
+
+            List<QuadKey> quads = new ArrayList<>();
+            List<BakedQuad> allQuads = new ArrayList<>();
+            for (Direction side : QUAD_SIDES) {
+                for (BakedQuad quad : model.getQuads(null, side, RandomSource.create(42L))) {
+                    quads.add(new QuadKey(side, quad));
+                    allQuads.add(quad);
+                }
+            }
+
+            return new ModelKey(model, transforms, quads, LazyFrameModels.estimateQuadBytes(allQuads));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ModelKey other)) return false;
+            return hash == other.hash &&
+                    type == other.type &&
+                    ambientOcclusion == other.ambientOcclusion &&
+                    gui3d == other.gui3d &&
+                    blockLight == other.blockLight &&
+                    particle == other.particle &&
+                    transforms.equals(other.transforms) &&
+                    renderTypes.equals(other.renderTypes) &&
+                    quads.equals(other.quads);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class QuadKey {
+        private final Direction side;
+        private final int[] vertices;
+        private final int tintIndex;
+        private final Direction direction;
+        private final TextureAtlasSprite sprite;
+        private final boolean shade;
+        private final int hash;
+
+        QuadKey(Direction side, BakedQuad quad) {
+            this.side = side;
+            this.vertices = quad.getVertices();
+            this.tintIndex = quad.getTintIndex();
+            this.direction = quad.getDirection();
+            this.sprite = quad.getSprite();
+            this.shade = quad.isShade();
+            this.hash = 31 * Objects.hash(side, tintIndex, direction, sprite, shade) + Arrays.hashCode(vertices);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof QuadKey other)) return false;
+            return hash == other.hash &&
+                    side == other.side &&
+                    tintIndex == other.tintIndex &&
+                    direction == other.direction &&
+                    sprite == other.sprite &&
+                    shade == other.shade &&
+                    Arrays.equals(vertices, other.vertices);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
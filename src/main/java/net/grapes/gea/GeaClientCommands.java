@@ -0,0 +1,80 @@
+package net.grapes.gea;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.context.CommandContext;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.client.Minecraft;
+import net.minecraft.commands.Commands;
+import net.minecraft.network.chat.Component;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.client.event.RegisterClientCommandsEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.util.List;
+import java.util.Map;
+
+@Mod.EventBusSubscriber(modid = GrapesEatingAnimation.MODID, value = Dist.CLIENT)
+public class GeaClientCommands {
+
+    private static final int TOP_ENTRIES = 10;
+
+    @SubscribeEvent
+    public static void onRegisterClientCommands(RegisterClientCommandsEvent event) {
+        CommandDispatcher<CommandSourceStack> dispatcher = event.getDispatcher();
+
+        dispatcher.register(Commands.literal("gea")
+                .then(Commands.literal("memory")
+                        .executes(context -> showMemoryReport(context, null))
+                        .then(Commands.argument("namespace", StringArgumentType.word())
+                                .executes(context -> showMemoryReport(context, StringArgumentType.getString(context, "namespace")))))
+                .then(Commands.literal("hud")
+                        .executes(GeaClientCommands::toggleHud))
+                .then(Commands.literal("dump-client")
+                        .executes(context -> GeaDebugCommands.dumpEvents(context, GeaDiagnostics.DEFAULT_DUMP_COUNT, Minecraft.getInstance()))
+                        .then(Commands.argument("count", IntegerArgumentType.integer(1, GeaDiagnostics.CAPACITY))
+                                .executes(context -> GeaDebugCommands.dumpEvents(context, IntegerArgumentType.getInteger(context, "count"), Minecraft.getInstance()))))
+        );
+
+        GrapesEatingAnimation.LOGGER.info("GEA: Registered client commands");
+    }
+
+    private static int toggleHud(CommandContext<CommandSourceStack> context) {
+        boolean visible = GeaPerformanceOverlay.toggle();
+        context.getSource().sendSuccess(() -> Component.literal(visible ? "§aGEA performance overlay enabled" : "§7GEA performance overlay disabled"), false);
+        return 1;
+    }
+
+    private static int showMemoryReport(CommandContext<CommandSourceStack> context, String namespace) {
+        GeaMemoryReport report = GeaMemoryReport.collect();
+        CommandSourceStack source = context.getSource();
+
+        source.sendSuccess(() -> Component.literal("§aGEA estimated heap: §f" + GeaMemoryReport.formatBytes(report.getTotalBytes())), false);
+
+        for (Map.Entry<String, Long> category : report.getCategories().entrySet()) {
+            source.sendSuccess(() -> Component.literal("§7  - " + category.getKey() + ": §f" + GeaMemoryReport.formatBytes(category.getValue())), false);
+        }
+
+        source.sendSuccess(() -> Component.literal("§7  - Frame model data: §f" + report.getFrameModelCount() + "§7 models, §f"
+                + report.getQuadCount() + "§7 quads, §f" + report.getVertexInts() + "§7 vertex ints"), false);
+
+        if (namespace == null) {
+            List<Map.Entry<String, Long>> topNamespaces = report.getTopNamespaces(TOP_ENTRIES);
+            source.sendSuccess(() -> Component.literal("§7Top namespaces (of §f" + report.getNamespaceCount() + "§7):"), false);
+            for (Map.Entry<String, Long> entry : topNamespaces) {
+                source.sendSuccess(() -> Component.literal("§7  - §f" + entry.getKey() + "§7: §f" + GeaMemoryReport.formatBytes(entry.getValue())), false);
+            }
+        }
+
+        List<Map.Entry<String, Long>> topItems = report.getTopItems(TOP_ENTRIES, namespace);
+        source.sendSuccess(() -> Component.literal(namespace == null ? "§7Top items:" : "§7Top items in §f" + namespace + "§7:"), false);
+        for (Map.Entry<String, Long> entry : topItems) {
+            source.sendSuccess(() -> Component.literal("§7  - §f" + entry.getKey() + "§7: §f" + GeaMemoryReport.formatBytes(entry.getValue())), false);
+        }
+
+        GrapesEatingAnimation.LOGGER.info("GEA: Memory report - total {} bytes, categories {}", report.getTotalBytes(), report.getCategories());
+        return 1;
+    }
+}
@@ -12,6 +12,7 @@
 package net.grapes.gea;
 
 import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.context.CommandContext;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
@@ -27,11 +28,15 @@ import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.GameType;
 import net.minecraftforge.event.RegisterCommandsEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.network.PacketDistributor;
 import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.registries.ForgeRegistries;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 @Mod.EventBusSubscriber(modid = GrapesEatingAnimation.MODID)
 public class GeaDebugCommands {
@@ -51,6 +56,27 @@ public class GeaDebugCommands {
                         .executes(GeaDebugCommands::showOwnPlayerInfo)
                         .then(Commands.argument("player", EntityArgument.player())
                                 .executes(GeaDebugCommands::showTargetPlayerInfo)))
+                .then(Commands.literal("bench")
+                        .requires(source -> source.hasPermission(2))
+                        .then(Commands.argument("animations", IntegerArgumentType.integer(1, ServerBenchmark.MAX_ANIMATIONS))
+                                .then(Commands.argument("ticks", IntegerArgumentType.integer(1, ServerBenchmark.MAX_TICKS))
+                                        .executes(GeaDebugCommands::runBenchmark))))
+                .then(Commands.literal("dump")
+                        .requires(source -> source.hasPermission(2))
+                        .executes(context -> dumpEvents(context, GeaDiagnostics.DEFAULT_DUMP_COUNT, context.getSource().getServer()))
+                        .then(Commands.argument("count", IntegerArgumentType.integer(1, GeaDiagnostics.CAPACITY))
+                                .executes(context -> dumpEvents(context, IntegerArgumentType.getInteger(context, "count"), context.getSource().getServer()))))
+                .then(Commands.literal("timeline")
+                        .requires(source -> source.hasPermission(2))
+                        .executes(GeaDebugCommands::showTimelineStatus)
+                        .then(Commands.literal("start")
+                                .executes(context -> startTimeline(context, GeaTimeline.DEFAULT_CAPACITY))
+                                .then(Commands.argument("ticks", IntegerArgumentType.integer(20, GeaTimeline.MAX_CAPACITY))
+                                        .executes(context -> startTimeline(context, IntegerArgumentType.getInteger(context, "ticks")))))
+                        .then(Commands.literal("stop")
+                                .executes(GeaDebugCommands::stopTimeline))
+                        .then(Commands.literal("export")
+                                .executes(GeaDebugCommands::exportTimeline)))
         );
 
         GrapesEatingAnimation.LOGGER.info("GEA: Registered debug commands");
@@ -106,7 +132,7 @@ public class GeaDebugCommands {
         int itemsGiven = 0;
         int itemsFailed = 0;
 
-        for (String itemIdString : animations.keySet()) {
+        for (String itemIdString : EatingAnimationConfig.getAnimatedItemIds()) {
             try {
                 ResourceLocation itemId = new ResourceLocation(itemIdString);
                 Item item = ForgeRegistries.ITEMS.getValue(itemId);
@@ -176,6 +202,123 @@ public class GeaDebugCommands {
         }
     }
 
+    private static int runBenchmark(CommandContext<CommandSourceStack> context) {
+        if (!isCreativeMode(context)) {
+            context.getSource().sendFailure(Component.literal("§cThis command only works in Creative mode!"));
+            return 0;
+        }
+
+        int animations = IntegerArgumentType.getInteger(context, "animations");
+        int ticks = IntegerArgumentType.getInteger(context, "ticks");
+
+        String error = ServerBenchmark.start(context.getSource(), animations, ticks);
+        if (error != null) {
+            context.getSource().sendFailure(Component.literal("§c" + error));
+            return 0;
+        }
+
+        ServerPlayer player = context.getSource().getPlayer();
+        if (player != null) {
+            NetworkHandler.INSTANCE.send(PacketDistributor.PLAYER.with(() -> player),
+                    new NetworkHandler.BenchmarkPacket(animations, ticks));
+        }
+
+        context.getSource().sendSuccess(
+                () -> Component.literal("§aRunning GEA benchmark: §f" + animations + "§a animations for §f" + ticks + "§a ticks..."),
+                false
+        );
+        return 1;
+    }
+
+    // Replies on the given thread, since the dump completes on the IO pool.
+    static int dumpEvents(CommandContext<CommandSourceStack> context, int count, Executor replyExecutor) {
+        CommandSourceStack source = context.getSource();
+        if (!GeaDiagnostics.ENABLED) {
+            source.sendFailure(Component.literal("§cGEA diagnostics are disabled (-Dgea.diagnostics=false)"));
+            return 0;
+        }
+
+        GeaDiagnostics.dump(count).whenCompleteAsync((file, error) -> {
+            if (error != null) {
+                GrapesEatingAnimation.LOGGER.error("GEA: Failed to write diagnostic dump", error);
+                source.sendFailure(Component.literal("§cFailed to write GEA event dump: " + error.getMessage()));
+            } else {
+                source.sendSuccess(() -> Component.literal("§aWrote GEA events to §f" + file), false);
+            }
+        }, replyExecutor);
+        return 1;
+    }
+
+    private static int showTimelineStatus(CommandContext<CommandSourceStack> context) {
+        Path file = GeaTimeline.getFile();
+        if (GeaTimeline.isRecording()) {
+            long ticks = GeaTimeline.getRecordedTicks();
+            context.getSource().sendSuccess(() -> Component.literal("§aGEA timeline recording: §f" + ticks + "§a ticks to §f" + file), false);
+        } else if (file != null) {
+            context.getSource().sendSuccess(() -> Component.literal("§7GEA timeline stopped, last recording: §f" + file), false);
+        } else {
+            context.getSource().sendSuccess(() -> Component.literal("§7GEA timeline is not recording"), false);
+        }
+        return GeaTimeline.isRecording() ? 1 : 0;
+    }
+
+    private static int startTimeline(CommandContext<CommandSourceStack> context, int capacity) {
+        if (GeaTimeline.isRecording()) {
+            context.getSource().sendFailure(Component.literal("§cA GEA timeline is already recording to " + GeaTimeline.getFile()));
+            return 0;
+        }
+
+        try {
+            Path file = GeaTimeline.start(capacity);
+            context.getSource().sendSuccess(
+                    () -> Component.literal("§aRecording GEA timeline (last §f" + capacity + "§a ticks) to §f" + file),
+                    true
+            );
+            return 1;
+        } catch (IOException e) {
+            GrapesEatingAnimation.LOGGER.error("GEA: Failed to start tick timeline", e);
+            context.getSource().sendFailure(Component.literal("§cFailed to start GEA timeline: " + e.getMessage()));
+            return 0;
+        }
+    }
+
+    private static int stopTimeline(CommandContext<CommandSourceStack> context) {
+        if (!GeaTimeline.isRecording()) {
+            context.getSource().sendFailure(Component.literal("§cNo GEA timeline is recording"));
+            return 0;
+        }
+
+        CommandSourceStack source = context.getSource();
+        long ticks = GeaTimeline.getRecordedTicks();
+        GeaTimeline.stop().whenCompleteAsync((file, error) -> {
+            if (error != null) {
+                GrapesEatingAnimation.LOGGER.error("GEA: Failed to close tick timeline", error);
+                source.sendFailure(Component.literal("§cFailed to close GEA timeline: " + error.getMessage()));
+            } else {
+                source.sendSuccess(() -> Component.literal("§aStopped GEA timeline after §f" + ticks + "§a ticks: §f" + file), true);
+            }
+        }, source.getServer());
+        return 1;
+    }
+
+    private static int exportTimeline(CommandContext<CommandSourceStack> context) {
+        if (GeaTimeline.getFile() == null) {
+            context.getSource().sendFailure(Component.literal("§cNo GEA timeline has been recorded"));
+            return 0;
+        }
+
+        CommandSourceStack source = context.getSource();
+        GeaTimeline.exportCsv().whenCompleteAsync((file, error) -> {
+            if (error != null) {
+                GrapesEatingAnimation.LOGGER.error("GEA: Failed to export tick timeline", error);
+                source.sendFailure(Component.literal("§cFailed to export GEA timeline: " + error.getMessage()));
+            } else {
+                source.sendSuccess(() -> Component.literal("§aExported GEA timeline to §f" + file), false);
+            }
+        }, source.getServer());
+        return 1;
+    }
+
     private static int showOwnPlayerInfo(CommandContext<CommandSourceStack> context) throws CommandSyntaxException {
         if (!isCreativeMode(context)) {
             context.getSource().sendFailure(Component.literal("§cThis command only works in Creative mode!"));
@@ -239,7 +382,14 @@ public class GeaDebugCommands {
                 );
 
                 if (hasAnimation) {
-                    List<String> frames = EatingAnimationConfig.getAnimationFrames(itemId);
+                    int variant = AnimationVariantResolver.resolve(useItem, itemId);
+                    String animationKey = EatingAnimationConfig.getAnimationKey(itemId, variant);
+                    context.getSource().sendSuccess(
+                            () -> Component.literal("§7  - Animation variant: §f" + (animationKey != null ? animationKey : "none matches")),
+                            false
+                    );
+
+                    List<String> frames = EatingAnimationConfig.getAnimationFrames(itemId, variant);
                     context.getSource().sendSuccess(
                             () -> Component.literal("§7  - Animation frames: §f" + (frames != null ? frames.size() : 0)),
                             false
@@ -0,0 +1,122 @@
+package net.grapes.gea;
+
+import net.grapes.gea.core.EventRing;
+import net.minecraft.Util;
+import net.minecraftforge.fml.loading.FMLPaths;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+
+// Hot paths record structured events here instead of logging. Recording is a few array stores with no
+// formatting, boxing or name lookups; /gea dump formats the last events to a file when someone needs them.
+// Launch with -Dgea.diagnostics=false to turn recording off entirely.
+public class GeaDiagnostics {
+    public static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("gea.diagnostics"));
+    public static final int CAPACITY = 8192;
+    public static final int DEFAULT_DUMP_COUNT = 1000;
+
+    private static final Path DUMP_DIR = FMLPaths.GAMEDIR.get().resolve("gea-dumps");
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+    private static final DateTimeFormatter FILE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneId.systemDefault());
+
+    private static final EventRing RING = new EventRing(ENABLED ? CAPACITY : 1);
+    private static final long BASE_MILLIS = System.currentTimeMillis();
+    private static final long BASE_NANOS = System.nanoTime();
+
+    public enum Event {
+        SERVER_EAT_START("entity", "duration", "recipients", "item"),
+        SERVER_EAT_STOP("entity", "recipients", null, null),
+        SERVER_EAT_SWITCH("entity", "duration", "recipients", "item"),
+        SERVER_STATE_COALESCED("entity", "changes", null, null),
+        SERVER_DURATION_CORRECTION("entity", "predicted", "duration", "item"),
+        SERVER_SYNC("animations", null, null, "kind"),
+        SERVER_JOIN_SYNC("entity", "animations", null, null),
+        PACKET_RECEIVED("entity", "eating", "startTick", "item"),
+        PACKET_DELAYED("entity", "queued", null, null),
+        DELAYED_APPLIED("entity", null, null, null),
+        DELAYED_DROPPED("entity", null, null, null),
+        START_TICK_ADJUSTED("entity", "startTick", "delayMs", null),
+        ANIMATION_PREDICTED("entity", "duration", "startTick", "item"),
+        ANIMATION_SET("entity", "startTick", null, "item"),
+        ANIMATION_CLEARED("entity", null, null, null),
+        ANIMATION_EVICTED("entity", null, null, null),
+        STATE_CREATED("frames", "duration", "startTick", "item"),
+        FRAME_CHANGED("index", "elapsed", "startTick", "frame"),
+        FRAME_MODEL_LOADED("found", null, null, "frame"),
+        CLEANUP("removed", "active", null, null);
+
+        private final String[] labels;
+
+        Event(String a, String b, String c, String ref) {
+            this.labels = new String[]{a, b, c, ref};
+        }
+    }
+
+    public static void record(Event event, int a, int b, int c, Object ref) {
+        if (ENABLED) {
+            RING.record(event.ordinal(), a, b, c, ref);
+        }
+    }
+
+    public static void record(Event event, int a, Object ref) {
+        if (ENABLED) {
+            RING.record(event.ordinal(), a, 0, 0, ref);
+        }
+    }
+
+    public static void record(Event event, int a) {
+        if (ENABLED) {
+            RING.record(event.ordinal(), a, 0, 0, null);
+        }
+    }
+
+    public static long getRecordedCount() {
+        return RING.recorded();
+    }
+
+    // Snapshots on the calling thread so the dump reflects the moment it was asked for; the file is written on the IO pool.
+    public static CompletableFuture<Path> dump(int count) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("# GEA diagnostic events, ").append(RING.recorded()).append(" recorded since start, ring capacity ")
+                .append(RING.capacity()).append('\n');
+
+        Event[] events = Event.values();
+        int dumped = RING.snapshot(count, (sequence, nanos, type, a, b, c, ref, thread) -> {
+            Event event = events[type];
+            builder.append(TIME_FORMAT.format(Instant.ofEpochMilli(BASE_MILLIS + (nanos - BASE_NANOS) / 1_000_000)))
+                    .append(" #").append(sequence)
+                    .append(" [").append(thread != null ? thread.getName() : "?").append("] ")
+                    .append(event.name());
+            int[] args = {a, b, c};
+            for (int i = 0; i < args.length; i++) {
+                if (event.labels[i] != null) {
+                    builder.append(' ').append(event.labels[i]).append('=').append(args[i]);
+                }
+            }
+            if (event.labels[3] != null) {
+                builder.append(' ').append(event.labels[3]).append('=').append(ref);
+            }
+            builder.append('\n');
+        });
+        builder.append("# ").append(dumped).append(" events\n");
+
+        String contents = builder.toString();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                Files.createDirectories(DUMP_DIR);
+                Path file = DUMP_DIR.resolve("gea-events-" + FILE_FORMAT.format(Instant.now()) + ".log");
+                Files.writeString(file, contents, StandardCharsets.UTF_8);
+                GrapesEatingAnimation.LOGGER.info("GEA: Dumped {} diagnostic events to {}", dumped, file);
+                return file;
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }, Util.ioPool());
+    }
+}
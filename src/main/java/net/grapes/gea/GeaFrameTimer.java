@@ -0,0 +1,63 @@
+package net.grapes.gea;
+
+import net.grapes.gea.core.BenchmarkSamples;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+
+// Accumulates time (and optionally allocations) spent in GEA's client-thread work while something is
+// consuming it: the performance overlay or a running /gea bench. Readers diff the running totals.
+@OnlyIn(Dist.CLIENT)
+public class GeaFrameTimer {
+    private static int users = 0;
+    private static int allocationUsers = 0;
+    private static int depth = 0;
+    private static long sectionAllocatedStart = 0;
+
+    private static long totalNanos = 0;
+    private static long totalAllocatedBytes = 0;
+
+    public static void acquire(boolean trackAllocations) {
+        users++;
+        if (trackAllocations) {
+            allocationUsers++;
+        }
+    }
+
+    public static void release(boolean trackAllocations) {
+        users = Math.max(0, users - 1);
+        if (trackAllocations) {
+            allocationUsers = Math.max(0, allocationUsers - 1);
+        }
+    }
+
+    public static long start() {
+        if (users == 0) {
+            return 0L;
+        }
+        if (depth++ == 0 && allocationUsers > 0) {
+            sectionAllocatedStart = BenchmarkSamples.threadAllocatedBytes();
+        }
+        return System.nanoTime();
+    }
+
+    public static void stop(long startNanos) {
+        if (startNanos == 0L) {
+            return;
+        }
+        long elapsed = System.nanoTime() - startNanos;
+        if (--depth == 0) {
+            totalNanos += elapsed;
+            if (allocationUsers > 0 && sectionAllocatedStart >= 0) {
+                totalAllocatedBytes += BenchmarkSamples.threadAllocatedBytes() - sectionAllocatedStart;
+            }
+        }
+    }
+
+    public static long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public static long getTotalAllocatedBytes() {
+        return totalAllocatedBytes;
+    }
+}
@@ -0,0 +1,553 @@
+package net.grapes.gea;
+
+import net.grapes.gea.core.AnimationConfigLoader;
+import net.grapes.gea.core.AnimationConfigParser;
+import net.grapes.gea.core.BenchmarkSamples;
+import net.minecraft.gametest.framework.GameTest;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.InteractionHand;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.phys.Vec3;
+import net.minecraftforge.gametest.GameTestHolder;
+import net.minecraftforge.gametest.PrefixGameTestTemplate;
+import net.minecraftforge.registries.ForgeRegistries;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Run with the gameTestServer run config, or /test runall in a dev client. The packet sink and the
+// player list are server-wide, so every test gets its own batch and the batches run one at a time.
+@GameTestHolder(GrapesEatingAnimation.MODID)
+@PrefixGameTestTemplate(false)
+public class GeaGameTests {
+    private static final String TEMPLATE = "empty";
+    private static final double FAR_AWAY = 100.0;
+    // Long enough for at least one fast sync and one periodic sync.
+    private static final int RESYNC_WAIT_TICKS = 45;
+    // Long enough for the delayed initial sync of a newly joined or respawned player.
+    private static final int INITIAL_SYNC_WAIT_TICKS = 35;
+    // Long enough for a held stop or a rate-limited change to be broadcast.
+    private static final int STATE_CHANGE_WAIT_TICKS = ServerEventHandler.STATE_CHANGE_WINDOW + 2;
+    private static final int STORM_TICKS = 40;
+
+    private static final int BUDGET_EATERS = 50;
+    private static final int BUDGET_WATCHERS = 5;
+    private static final int BUDGET_TICKS = 100;
+    private static final long MAX_AVERAGE_TICK_NANOS = 1_000_000L;
+    private static final long MAX_P95_TICK_NANOS = 2_000_000L;
+    private static final double MAX_PACKETS_PER_PAIR_PER_SECOND = 5.0;
+    private static final int MAX_PACKETS_PER_PAIR_PER_TICK = 4;
+
+    @GameTest(template = TEMPLATE, batch = "gea_start")
+    public static void startReachesNearbyPlayersOnly(GameTestHelper helper) {
+        Scenario scenario = new Scenario(helper);
+        ServerPlayer eater = scenario.player(1.5, 1.5);
+        ServerPlayer near = scenario.player(12.5, 1.5);
+        ServerPlayer far = scenario.player(FAR_AWAY, 1.5);
+
+        scenario.startEating(eater);
+
+        scenario.finish(() -> {
+            scenario.assertRecipients(eater, true, Set.of(near));
+            scenario.assertPacketsPerRecipient(eater, 1);
+            helper.assertTrue(ServerEventHandler.isTrackingEater(eater), "Eater is not tracked after starting");
+        });
+    }
+
+    @GameTest(template = TEMPLATE, batch = "gea_stop")
+    public static void stopReachesNearbyPlayersOnly(GameTestHelper helper) {
+        Scenario scenario = new Scenario(helper);
+        ServerPlayer eater = scenario.player(1.5, 1.5);
+        ServerPlayer near = scenario.player(1.5, 20.5);
+        scenario.player(1.5, FAR_AWAY);
+
+        scenario.startEating(eater);
+        scenario.sink.clear();
+        eater.releaseUsingItem();
+        helper.assertFalse(ServerEventHandler.isTrackingEater(eater), "Eater is still tracked after stopping");
+
+        helper.runAfterDelay(STATE_CHANGE_WAIT_TICKS, () -> scenario.finish(() -> {
+            scenario.assertRecipients(eater, false, Set.of(near));
+            scenario.assertRecipients(eater, true, Set.of());
+        }));
+    }
+
+    @GameTest(template = TEMPLATE, batch = "gea_cancel", timeoutTicks = STATE_CHANGE_WAIT_TICKS + 20)
+    public static void cancelledStartSendsNothing(GameTestHelper helper) {
+        Scenario scenario = new Scenario(helper);
+        ServerPlayer eater = scenario.player(1.5, 1.5);
+        scenario.player(4.5, 1.5);
+
+        scenario.useFood(eater);
+        eater.releaseUsingItem();
+        ServerEventHandler.flushStateChanges();
+
+        helper.runAfterDelay(STATE_CHANGE_WAIT_TICKS, () -> scenario.finish(() -> {
+            scenario.assertRecipients(eater, true, Set.of());
+            scenario.assertRecipients(eater, false, Set.of());
+        }));
+    }
+
+    @GameTest(template = TEMPLATE, batch = "gea_switch", timeoutTicks = STATE_CHANGE_WAIT_TICKS + 20)
+    public static void nextFoodIsOneSwitchUpdate(GameTestHelper helper) {
+        Scenario scenario = new Scenario(helper);
+        ServerPlayer eater = scenario.player(1.5, 1.5);
+        ServerPlayer near = scenario.player(4.5, 1.5);
+
+        scenario.startEating(eater);
+        scenario.sink.clear();
+        eater.releaseUsingItem();
+        helper.runAfterDelay(1, () -> scenario.useFood(eater));
+
+        helper.runAfterDelay(STATE_CHANGE_WAIT_TICKS, () -> scenario.finish(() -> {
+            scenario.assertRecipients(eater, true, Set.of(near));
+            scenario.assertRecipients(eater, false, Set.of());
+        }));
+    }
+
+    // An autoclicker starting and cancelling every other tick gets at most one broadcast per window, and
+    // observers still end up with the final state.
+    @GameTest(template = TEMPLATE, batch = "gea_storm", timeoutTicks = STORM_TICKS + STATE_CHANGE_WAIT_TICKS + 20)
+    public static void startStopStormIsRateLimited(GameTestHelper helper) {
+        Scenario scenario = new Scenario(helper);
+        ServerPlayer eater = scenario.player(1.5, 1.5);
+        ServerPlayer near = scenario.player(4.5, 1.5);
+        int[] ticks = {0};
+
+        helper.onEachTick(() -> {
+            int tick = ticks[0]++;
+            if (tick >= STORM_TICKS) {
+                return;
+            }
+            if (tick % 2 == 0) {
+                scenario.useFood(eater);
+            } else {
+                eater.releaseUsingItem();
+            }
+        });
+
+        helper.runAtTickTime(STORM_TICKS + STATE_CHANGE_WAIT_TICKS, () -> scenario.finish(() -> {
+            int maxPackets = STORM_TICKS / ServerEventHandler.STATE_CHANGE_WINDOW + 2;
+            int packets = scenario.sink.count(eater.getId(), near);
+            helper.assertTrue(packets <= maxPackets,
+                    String.format("Observer got %d packets for %d start/stop cycles (limit %d)", packets, STORM_TICKS / 2, maxPackets));
+            NetworkHandler.EatingAnimationPacket last = scenario.sink.last(eater.getId(), near);
+            helper.assertTrue(last != null && !last.isEating(), "Observer's last packet for the eater isn't a stop");
+        }));
+    }
+
+    // With room for one packet per tick, the nearest eater's packet goes first, an eater updated while queued is
+    // sent once with its newest state, and the rest follow on later ticks.
+    @GameTest(template = TEMPLATE, batch = "gea_outbound")
+    public static void outboundBudgetSendsNearestFirst(GameTestHelper helper) {
+        Scenario scenario = new Scenario(helper);
+        ServerPlayer recipient = scenario.player(1.5, 1.5);
+        ServerPlayer near = scenario.player(5.5, 1.5);
+        ServerPlayer middle = scenario.player(41.5, 1.5);
+        ServerPlayer far = scenario.player(61.5, 1.5);
+
+        NetworkHandler.EatingAnimationPacket newer = scenario.packet(middle, 32);
+        int packetSize = newer.encodedSize();
+        GeaOutboundQueue queue = new GeaOutboundQueue(scenario.sink, () -> packetSize);
+        queue.flush(0);
+        queue.send(recipient, scenario.packet(far, 32));
+        queue.send(recipient, scenario.packet(middle, 16));
+        queue.send(recipient, scenario.packet(near, 32));
+        queue.send(recipient, newer);
+
+        queue.flush(1);
+        helper.assertTrue(scenario.sink.size() == 1 && scenario.sink.count(near.getId(), recipient) == 1,
+                "The nearest eater's packet wasn't the only one sent in the first tick");
+        queue.flush(2);
+        NetworkHandler.EatingAnimationPacket sent = scenario.sink.last(middle.getId(), recipient);
+        helper.assertTrue(scenario.sink.size() == 2 && sent != null && sent.getUseDuration() == 32,
+                "The second tick didn't send the newest packet for the middle eater");
+        helper.assertTrue(sent.getSendTick() == newer.getSendTick() + 1, "A deferred packet's send tick wasn't moved forward");
+        queue.flush(3);
+
+        scenario.finish(() -> {
+            helper.assertTrue(scenario.sink.size() == 3 && scenario.sink.count(far.getId(), recipient) == 1,
+                    "The farthest eater's packet wasn't sent last");
+            helper.assertTrue(queue.getSupersededPackets() == 1 && queue.getQueuedPacketCount() == 0,
+                    "The superseded packet wasn't dropped or packets are still queued");
+        });
+    }
+
+    @GameTest(template = TEMPLATE, batch = "gea_resync", timeoutTicks = RESYNC_WAIT_TICKS + 20)
+    public static void resyncReachesNearbyPlayersOnly(GameTestHelper helper) {
+        Scenario scenario = new Scenario(helper);
+        ServerPlayer eater = scenario.player(1.5, 1.5);
+        ServerPlayer near = scenario.player(-30.5, 1.5);
+        ServerPlayer alsoNear = scenario.player(1.5, 40.5);
+        scenario.player(-FAR_AWAY, 1.5);
+
+        scenario.startEating(eater);
+        scenario.sink.clear();
+
+        helper.runAfterDelay(RESYNC_WAIT_TICKS, () -> scenario.finish(() -> {
+            scenario.assertRecipients(eater, true, Set.of(near, alsoNear));
+            scenario.assertRecipients(eater, false, Set.of());
+        }));
+    }
+
+    @GameTest(template = TEMPLATE, batch = "gea_join", timeoutTicks = INITIAL_SYNC_WAIT_TICKS + 20)
+    public static void lateJoinerReceivesNearbyEatingStates(GameTestHelper helper) {
+        Scenario scenario = new Scenario(helper);
+        ServerPlayer eater = scenario.player(1.5, 1.5);
+        scenario.startEating(eater);
+        scenario.sink.clear();
+
+        ServerPlayer joiner = scenario.player(8.5, 8.5);
+        ServerPlayer farJoiner = scenario.player(FAR_AWAY, FAR_AWAY);
+        helper.assertTrue(ServerEventHandler.isAwaitingInitialSync(joiner), "Joiner has no initial sync scheduled");
+
+        helper.runAfterDelay(INITIAL_SYNC_WAIT_TICKS, () -> scenario.finish(() -> {
+            scenario.assertRecipients(eater, true, Set.of(joiner));
+            helper.assertFalse(ServerEventHandler.isAwaitingInitialSync(joiner), "Joiner still awaits its initial sync");
+            helper.assertFalse(ServerEventHandler.isAwaitingInitialSync(farJoiner), "Far joiner still awaits its initial sync");
+        }));
+    }
+
+    @GameTest(template = TEMPLATE, batch = "gea_logout", timeoutTicks = RESYNC_WAIT_TICKS + 20)
+    public static void noStateLeaksAfterLogout(GameTestHelper helper) {
+        Scenario scenario = new Scenario(helper);
+        ServerPlayer eater = scenario.player(1.5, 1.5);
+        scenario.player(6.5, 1.5);
+        int baseline = ServerEventHandler.getActiveAnimationCount();
+
+        scenario.startEating(eater);
+        scenario.logout(eater);
+        scenario.sink.clear();
+
+        helper.assertFalse(ServerEventHandler.isTrackingEater(eater), "Eating state leaked after logout");
+        helper.assertFalse(ServerEventHandler.isAwaitingInitialSync(eater), "Initial sync leaked after logout");
+        helper.assertFalse(AnimationTableSync.isTrackingPlayer(eater), "Table transfer state leaked after logout");
+        helper.assertTrue(ServerEventHandler.getActiveAnimationCount() == baseline, "Active animation count did not return to baseline");
+
+        helper.runAfterDelay(RESYNC_WAIT_TICKS, () -> scenario.finish(() -> {
+            scenario.assertRecipients(eater, true, Set.of());
+            scenario.assertRecipients(eater, false, Set.of());
+        }));
+    }
+
+    @GameTest(template = TEMPLATE, batch = "gea_respawn", timeoutTicks = RESYNC_WAIT_TICKS + 20)
+    public static void noStateLeaksAfterRespawn(GameTestHelper helper) {
+        Scenario scenario = new Scenario(helper);
+        ServerPlayer eater = scenario.player(1.5, 1.5);
+        scenario.player(6.5, 1.5);
+        int baseline = ServerEventHandler.getActiveAnimationCount();
+
+        scenario.startEating(eater);
+        ServerPlayer respawned = scenario.respawn(eater);
+        scenario.sink.clear();
+
+        helper.assertFalse(ServerEventHandler.isTrackingEater(eater), "Eating state of the old player instance leaked after respawn");
+        helper.assertFalse(ServerEventHandler.isTrackingEater(respawned), "Respawned player is still eating");
+        helper.assertTrue(ServerEventHandler.getActiveAnimationCount() == baseline, "Active animation count did not return to baseline");
+
+        helper.runAfterDelay(RESYNC_WAIT_TICKS, () -> scenario.finish(() -> {
+            // The respawned player keeps the entity id, so any packet for it here would be a resync of the dead instance.
+            scenario.assertRecipients(respawned, true, Set.of());
+            helper.assertFalse(ServerEventHandler.isAwaitingInitialSync(eater), "Initial sync of the old player instance leaked");
+            helper.assertFalse(ServerEventHandler.isAwaitingInitialSync(respawned), "Respawned player still awaits its initial sync");
+        }));
+    }
+
+    // Mock players aren't ticked by the server, so the test advances them and runs their per-player check itself,
+    // timing it together with GEA's server tick work.
+    @GameTest(template = TEMPLATE, batch = "gea_budget", timeoutTicks = BUDGET_TICKS + 20)
+    public static void fiftyEatersStayWithinBudget(GameTestHelper helper) {
+        Scenario scenario = new Scenario(helper);
+        List<ServerPlayer> eaters = new ArrayList<>();
+        for (int i = 0; i < BUDGET_EATERS; i++) {
+            double angle = i * 2.399963;
+            double radius = 8.0 * Math.sqrt((i + 0.5) / BUDGET_EATERS);
+            eaters.add(scenario.player(1.5 + Math.cos(angle) * radius, 1.5 + Math.sin(angle) * radius));
+        }
+        for (int i = 0; i < BUDGET_WATCHERS; i++) {
+            double angle = i * Math.PI * 2 / BUDGET_WATCHERS;
+            scenario.player(1.5 + Math.cos(angle) * 16.0, 1.5 + Math.sin(angle) * 16.0);
+        }
+        for (ServerPlayer eater : eaters) {
+            scenario.startEating(eater);
+        }
+
+        BenchmarkSamples tickNanos = new BenchmarkSamples(BUDGET_TICKS);
+        BenchmarkSamples tickPackets = new BenchmarkSamples(BUDGET_TICKS);
+        int[] ticks = {0};
+        int[] lastPacketCount = {scenario.sink.size()};
+
+        helper.onEachTick(() -> {
+            if (ticks[0]++ >= BUDGET_TICKS) {
+                return;
+            }
+
+            long startNanos = System.nanoTime();
+            for (ServerPlayer eater : eaters) {
+                eater.tickCount++;
+                ServerEventHandler.tickEatingState(eater);
+                if (!ServerEventHandler.isTrackingEater(eater)) {
+                    eater.stopUsingItem();
+                    eater.startUsingItem(InteractionHand.MAIN_HAND);
+                }
+            }
+            // Sync work of the previous server tick, which ran after the last onEachTick.
+            tickNanos.add(System.nanoTime() - startNanos + ServerEventHandler.getLastSyncNanos());
+            tickPackets.add(scenario.sink.size() - lastPacketCount[0]);
+            lastPacketCount[0] = scenario.sink.size();
+        });
+
+        helper.runAtTickTime(BUDGET_TICKS + 1, () -> scenario.finish(() -> {
+            long pairs = (long) BUDGET_EATERS * (BUDGET_EATERS - 1 + BUDGET_WATCHERS);
+            double seconds = BUDGET_TICKS / 20.0;
+            long averageNanos = tickNanos.sum() / Math.max(tickNanos.size(), 1);
+
+            helper.assertTrue(averageNanos <= MAX_AVERAGE_TICK_NANOS,
+                    String.format("GEA averaged %.3f ms/tick for %d eaters (budget %.3f ms)",
+                            averageNanos / 1_000_000.0, BUDGET_EATERS, MAX_AVERAGE_TICK_NANOS / 1_000_000.0));
+            helper.assertTrue(tickNanos.percentile(95) <= MAX_P95_TICK_NANOS,
+                    String.format("GEA p95 tick took %.3f ms for %d eaters (budget %.3f ms)",
+                            tickNanos.percentile(95) / 1_000_000.0, BUDGET_EATERS, MAX_P95_TICK_NANOS / 1_000_000.0));
+            helper.assertTrue(tickPackets.sum() <= pairs * MAX_PACKETS_PER_PAIR_PER_SECOND * seconds,
+                    String.format("GEA sent %d packets in %.1f s for %d eater-recipient pairs (budget %.1f/pair/s)",
+                            tickPackets.sum(), seconds, pairs, MAX_PACKETS_PER_PAIR_PER_SECOND));
+            helper.assertTrue(tickPackets.max() <= pairs * MAX_PACKETS_PER_PAIR_PER_TICK,
+                    String.format("GEA sent %d packets in one tick for %d eater-recipient pairs (budget %d/pair/tick)",
+                            tickPackets.max(), pairs, MAX_PACKETS_PER_PAIR_PER_TICK));
+
+            GrapesEatingAnimation.LOGGER.info("GEA: Budget test - {} eaters, avg {} ns/tick, p95 {} ns, {} packets, peak {} packets/tick",
+                    BUDGET_EATERS, averageNanos, tickNanos.percentile(95), tickPackets.sum(), tickPackets.max());
+        }));
+    }
+
+    // Hand-written configs that Gson.fromJson accepted must keep loading through the streaming parser.
+    @GameTest(template = TEMPLATE, batch = "gea_parser")
+    public static void lenientConfigStillParses(GameTestHelper helper) {
+        String json = """
+                // Comments, single quotes, unquoted names and a trailing comma in an array
+                {
+                  'minecraft:apple': ['anim:apple_0', 'anim:apple_1'],
+                  cookie: ["anim:cookie_0",], # the trailing comma reads as a null frame
+                  /* block comment */ "minecraft:bread": null
+                }
+                """;
+
+        Map<String, List<String>> animations;
+        try {
+            animations = AnimationConfigParser.parseStreaming(new StringReader(json), null);
+        } catch (IOException e) {
+            helper.fail("Lenient config was rejected: " + e.getMessage());
+            return;
+        }
+
+        helper.assertTrue(List.of("anim:apple_0", "anim:apple_1").equals(animations.get("minecraft:apple")),
+                "Single-quoted entry parsed as " + animations.get("minecraft:apple"));
+        helper.assertTrue(Arrays.asList("anim:cookie_0", null).equals(animations.get("cookie")),
+                "Unquoted name parsed as " + animations.get("cookie"));
+        helper.assertTrue(animations.containsKey("minecraft:bread") && animations.get("minecraft:bread") == null,
+                "Entry after a block comment is missing");
+        helper.assertTrue(animations.size() == 3, "Expected 3 animations, got " + animations.keySet());
+        helper.succeed();
+    }
+
+    // A reload that catches a file mid-save keeps that file's previous definitions instead of dropping them.
+    @GameTest(template = TEMPLATE, batch = "gea_reload")
+    public static void truncatedSaveKeepsPreviousDefinitions(GameTestHelper helper) {
+        try {
+            Path dir = Files.createTempDirectory("gea-reload-test");
+            Path food = dir.resolve("food.json");
+            Path other = dir.resolve("other.json");
+            List<Path> files = List.of(food, other);
+            Files.writeString(other, "{\"minecraft:bread\": [\"anim:bread_0\"]}");
+
+            Files.writeString(food, "{\"minecraft:apple\": [\"anim:apple_0\", \"anim:apple_1\"]}");
+            AnimationConfigLoader.Result first = AnimationConfigLoader.load(files, Runnable::run);
+
+            Files.writeString(food, "{\"minecraft:apple\": [\"anim:apple_0\", ");
+            AnimationConfigLoader.Result truncated = AnimationConfigLoader.load(files, Runnable::run, first);
+            helper.assertTrue(truncated.errors.size() == 1 && !truncated.hasLostFiles(),
+                    "Truncated file was not reported as kept: " + truncated.errors.size() + " errors");
+            helper.assertTrue(first.animations.equals(truncated.animations),
+                    "Truncated save changed the animations to " + truncated.animations);
+
+            Files.writeString(food, "{\"minecraft:apple\": [\"anim:apple_2\"]}");
+            AnimationConfigLoader.Result second = AnimationConfigLoader.load(files, Runnable::run, truncated);
+            helper.assertTrue(second.errors.isEmpty(), "Valid save still reported errors");
+            helper.assertTrue(List.of("anim:apple_2").equals(second.animations.get("minecraft:apple"))
+                            && second.animations.containsKey("minecraft:bread"),
+                    "Second save loaded as " + second.animations);
+
+            Files.delete(food);
+            Files.delete(other);
+            Files.delete(dir);
+        } catch (IOException e) {
+            helper.fail("Could not write test config files: " + e.getMessage());
+            return;
+        }
+        helper.succeed();
+    }
+
+    private static class Scenario {
+        private final GameTestHelper helper;
+        private final RecordingSink sink = new RecordingSink();
+        private final ServerEventHandler.PacketSink previousSink;
+        private final List<ServerPlayer> players = new ArrayList<>();
+        private final Item food;
+
+        Scenario(GameTestHelper helper) {
+            this.helper = helper;
+            this.food = findAnimatedFood(helper);
+            this.previousSink = ServerEventHandler.setPacketSink(sink);
+        }
+
+        ServerPlayer player(double x, double z) {
+            ServerPlayer player = helper.makeMockServerPlayerInLevel();
+            Vec3 position = helper.absoluteVec(new Vec3(x, 1.0, z));
+            player.moveTo(position.x, position.y, position.z, 0.0F, 0.0F);
+            players.add(player);
+            return player;
+        }
+
+        void useFood(ServerPlayer player) {
+            player.setItemInHand(InteractionHand.MAIN_HAND, new ItemStack(food));
+            player.startUsingItem(InteractionHand.MAIN_HAND);
+            helper.assertTrue(player.isUsingItem(), "Mock player did not start eating");
+        }
+
+        NetworkHandler.EatingAnimationPacket packet(ServerPlayer eater, int useDuration) {
+            ResourceLocation itemId = ForgeRegistries.ITEMS.getKey(food);
+            return new NetworkHandler.EatingAnimationPacket(eater.getId(), itemId != null ? itemId.toString() : null, 0,
+                    useDuration, true, eater.tickCount, eater.tickCount);
+        }
+
+        // Starts eating and broadcasts it right away, as the end of the tick would.
+        void startEating(ServerPlayer player) {
+            useFood(player);
+            ServerEventHandler.flushStateChanges();
+        }
+
+        void logout(ServerPlayer player) {
+            helper.getLevel().getServer().getPlayerList().remove(player);
+            players.remove(player);
+        }
+
+        ServerPlayer respawn(ServerPlayer player) {
+            ServerPlayer respawned = helper.getLevel().getServer().getPlayerList().respawn(player, false);
+            players.remove(player);
+            players.add(respawned);
+            return respawned;
+        }
+
+        void assertRecipients(ServerPlayer eater, boolean eating, Set<ServerPlayer> expected) {
+            Set<ServerPlayer> actual = sink.recipients(eater.getId(), eating);
+            if (!actual.equals(expected)) {
+                helper.fail(String.format("%s packets for eater %d went to %s, expected %s",
+                        eating ? "Eating" : "Stop", eater.getId(), describe(actual), describe(expected)));
+            }
+        }
+
+        void assertPacketsPerRecipient(ServerPlayer eater, int expected) {
+            for (ServerPlayer recipient : sink.recipients(eater.getId(), true)) {
+                int count = sink.count(eater.getId(), recipient);
+                if (count != expected) {
+                    helper.fail(String.format("%s got %d packets for eater %d, expected %d",
+                            recipient.getName().getString(), count, eater.getId(), expected));
+                }
+            }
+        }
+
+        // Always restores the real sink and removes the mock players, even when an assertion fails.
+        void finish(Runnable assertions) {
+            try {
+                assertions.run();
+            } finally {
+                ServerEventHandler.setPacketSink(previousSink);
+                for (ServerPlayer player : new ArrayList<>(players)) {
+                    logout(player);
+                }
+            }
+            helper.succeed();
+        }
+
+        private String describe(Set<ServerPlayer> players) {
+            List<Integer> ids = new ArrayList<>();
+            for (ServerPlayer player : players) {
+                ids.add(player.getId());
+            }
+            return ids.toString();
+        }
+
+        private static Item findAnimatedFood(GameTestHelper helper) {
+            for (String key : EatingAnimationConfig.getAnimatedItemIds()) {
+                ResourceLocation itemId = ResourceLocation.tryParse(key);
+                Item item = itemId != null ? ForgeRegistries.ITEMS.getValue(itemId) : null;
+                if (item != null && new ItemStack(item).isEdible()) {
+                    return item;
+                }
+            }
+            helper.fail("No edible item with an animation is configured");
+            return null;
+        }
+    }
+
+    private static class RecordingSink implements ServerEventHandler.PacketSink {
+        private final List<ServerPlayer> recipients = new ArrayList<>();
+        private final List<NetworkHandler.EatingAnimationPacket> packets = new ArrayList<>();
+
+        @Override
+        public void send(ServerPlayer recipient, NetworkHandler.EatingAnimationPacket packet) {
+            recipients.add(recipient);
+            packets.add(packet);
+        }
+
+        Set<ServerPlayer> recipients(int playerId, boolean eating) {
+            Set<ServerPlayer> result = new HashSet<>();
+            for (int i = 0; i < packets.size(); i++) {
+                NetworkHandler.EatingAnimationPacket packet = packets.get(i);
+                if (packet.getPlayerId() == playerId && packet.isEating() == eating) {
+                    result.add(recipients.get(i));
+                }
+            }
+            return result;
+        }
+
+        int count(int playerId, ServerPlayer recipient) {
+            int count = 0;
+            for (int i = 0; i < packets.size(); i++) {
+                if (packets.get(i).getPlayerId() == playerId && recipients.get(i) == recipient) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        NetworkHandler.EatingAnimationPacket last(int playerId, ServerPlayer recipient) {
+            for (int i = packets.size() - 1; i >= 0; i--) {
+                if (packets.get(i).getPlayerId() == playerId && recipients.get(i) == recipient) {
+                    return packets.get(i);
+                }
+            }
+            return null;
+        }
+
+        int size() {
+            return packets.size();
+        }
+
+        void clear() {
+            recipients.clear();
+            packets.clear();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package net.grapes.gea;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Flight Recorder events for GEA. Call sites allocate the event and check shouldCommit() before filling it in;
+// without an active recording the event classes aren't instrumented, shouldCommit() is constant false and the
+// JIT removes the allocation. Timestamps and threads come from JFR itself, so these line up with GC, safepoint
+// and Minecraft's own tick events (/jfr start) in the same recording.
+public class GeaJfrEvents {
+
+    @Name("gea.AnimationStart")
+    @Label("Eating Animation Start")
+    @Category({"GEA", "Server"})
+    @Description("A player started eating an animated item on the server")
+    @StackTrace(false)
+    public static class AnimationStart extends Event {
+        @Label("Entity Id")
+        public int entityId;
+        @Label("Item")
+        public String item;
+        @Label("Use Duration (ticks)")
+        public int useDuration;
+        @Label("Recipients")
+        public int recipients;
+    }
+
+    @Name("gea.AnimationStop")
+    @Label("Eating Animation Stop")
+    @Category({"GEA", "Server"})
+    @Description("A tracked eating animation ended on the server")
+    @StackTrace(false)
+    public static class AnimationStop extends Event {
+        @Label("Entity Id")
+        public int entityId;
+        @Label("Recipients")
+        public int recipients;
+    }
+
+    @Name("gea.Broadcast")
+    @Label("Animation Broadcast")
+    @Category({"GEA", "Server"})
+    @Description("Eating animation state queued for the players around an eater; see gea.OutboundFlush for what was sent")
+    @StackTrace(false)
+    public static class Broadcast extends Event {
+        @Label("Kind")
+        @Description("start, switch, stop, fast sync, periodic sync or join sync")
+        public String kind;
+        @Label("Entity Id")
+        public int entityId;
+        @Label("Recipients")
+        public int recipients;
+    }
+
+    @Name("gea.OutboundFlush")
+    @Label("Animation Packets Sent")
+    @Category({"GEA", "Server"})
+    @Description("End-of-tick drain of the per-player outbound queues: what was written to the network")
+    @StackTrace(false)
+    public static class OutboundFlush extends Event {
+        @Label("Packets")
+        public int packets;
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+        @Label("Deferred")
+        @Description("Packets sent this tick after waiting for budget")
+        public int deferred;
+        @Label("Expired")
+        @Description("Packets dropped because the animation would have ended before they arrived")
+        public int expired;
+        @Label("Still Queued")
+        public int queued;
+    }
+
+    @Name("gea.PacketReceived")
+    @Label("Animation Packet Received")
+    @Category({"GEA", "Client"})
+    @Description("An eating animation packet applied on the client tick")
+    @StackTrace(false)
+    public static class PacketReceived extends Event {
+        @Label("Entity Id")
+        public int entityId;
+        @Label("Item")
+        public String item;
+        @Label("Eating")
+        public boolean eating;
+        @Label("Applied")
+        @Description("False when the entity wasn't available yet and the packet was delayed")
+        public boolean applied;
+        @Label("Queue Time (ms)")
+        public long queueMillis;
+    }
+
+    @Name("gea.DelayedPacket")
+    @Label("Delayed Animation Packet")
+    @Category({"GEA", "Client"})
+    @Description("A delayed eating animation packet was applied or dropped")
+    @StackTrace(false)
+    public static class DelayedPacket extends Event {
+        @Label("Entity Id")
+        public int entityId;
+        @Label("Outcome")
+        public String outcome;
+        @Label("Waited (ms)")
+        public long waitedMillis;
+        @Label("Remaining Delayed Packets")
+        public int remaining;
+    }
+
+    @Name("gea.FrameResolve")
+    @Label("Frame Model Resolve")
+    @Category({"GEA", "Client", "Rendering"})
+    @Description("Lookup of the baked model for the current animation frame")
+    @StackTrace(false)
+    public static class FrameResolve extends Event {
+        @Label("Frame")
+        public String frame;
+        @Label("Cache Hit")
+        public boolean cacheHit;
+        @Label("Found")
+        public boolean found;
+    }
+
+    @Name("gea.ConfigReload")
+    @Label("Animation Config Reload")
+    @Category({"GEA", "Config"})
+    @Description("Animation definitions were loaded from config files or resource packs")
+    @StackTrace(false)
+    public static class ConfigReload extends Event {
+        @Label("Source")
+        public String source;
+        @Label("Animations")
+        public int animations;
+        @Label("Files")
+        public int files;
+        @Label("From Compiled Cache")
+        public boolean fromCache;
+        @Label("Changed Animations")
+        public int changed;
+    }
+
+    @Name("gea.ModelWrap")
+    @Label("Model Wrapping At Bake")
+    @Category({"GEA", "Client", "Rendering"})
+    @Description("Wrapping animated item models and compiling frame timelines during model baking")
+    @StackTrace(false)
+    public static class ModelWrap extends Event {
+        @Label("Configured Items")
+        public int configured;
+        @Label("Wrapped Items")
+        public int wrapped;
+        @Label("Items Not Installed")
+        public int absent;
+        @Label("Lazy Frame Models")
+        public boolean lazyFrameModels;
+    }
+}
@@ -0,0 +1,251 @@
+package net.grapes.gea;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.block.model.BakedQuad;
+import net.minecraft.client.resources.model.BakedModel;
+import net.minecraft.core.Direction;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.util.RandomSource;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Estimated retained heap of GEA's client data structures, assuming a 64-bit JVM with compressed oops.
+// These are estimates for budgeting and spotting regressions, not exact measurements.
+@OnlyIn(Dist.CLIENT)
+public class GeaMemoryReport {
+
+    private static final long OBJECT_HEADER = 12;
+    private static final long REFERENCE = 4;
+    private static final long HASH_ENTRY = 32;
+    private static final long WRAPPED_MODEL = align(OBJECT_HEADER + 3 * REFERENCE) + align(OBJECT_HEADER + 4 * REFERENCE);
+    private static final long CACHED_MODEL = align(OBJECT_HEADER + REFERENCE + 2 * 8);
+    private static final long ANIMATION_STATE = align(OBJECT_HEADER + 6 * REFERENCE + 3 * 4 + 8 + 1);
+    private static final long ANIMATION_PACKET = align(OBJECT_HEADER + REFERENCE + 5 * 4 + 8 + 1);
+    private static final long DELAYED_PACKET = align(OBJECT_HEADER + REFERENCE + 8) + align(OBJECT_HEADER + 2 * REFERENCE);
+    private static final Direction[] QUAD_SIDES = {null, Direction.DOWN, Direction.UP, Direction.NORTH, Direction.SOUTH, Direction.WEST, Direction.EAST};
+
+    private final Map<String, Long> categories = new LinkedHashMap<>();
+    private final Map<String, Long> namespaces = new HashMap<>();
+    private final Map<String, Long> items = new HashMap<>();
+
+    private int frameModelCount = 0;
+    private int quadCount = 0;
+    private long vertexInts = 0;
+
+    public static GeaMemoryReport collect() {
+        GeaMemoryReport report = new GeaMemoryReport();
+        Map<String, List<String>> animations = EatingAnimationConfig.getAllAnimations();
+
+        report.collectConfig(animations);
+        report.collectWrappedModels();
+        report.collectFrameModels(animations);
+        report.collectFrameModelCache();
+        report.collectActiveAnimations();
+        report.collectDelayedPackets();
+
+        return report;
+    }
+
+    private void collectConfig(Map<String, List<String>> animations) {
+        long total = align(OBJECT_HEADER + 6 * 4) + array(tableSize(animations.size()));
+
+        for (Map.Entry<String, List<String>> entry : animations.entrySet()) {
+            List<String> frames = entry.getValue() != null ? entry.getValue() : Collections.emptyList();
+            long bytes = HASH_ENTRY + string(entry.getKey()) + list(frames.size());
+            for (String frame : frames) {
+                bytes += string(frame);
+            }
+            // Compiled timeline: object, frame array and segment end array.
+            bytes += align(OBJECT_HEADER + 3 * REFERENCE) + array(frames.size()) + array(frames.size());
+
+            total += bytes;
+            attribute(entry.getKey(), bytes);
+        }
+
+        categories.put("Animation config", total);
+    }
+
+    private void collectWrappedModels() {
+        Set<ResourceLocation> wrapped = EatingItemModelOverride.getWrappedItems();
+        long total = 0;
+        for (ResourceLocation itemId : wrapped) {
+            long bytes = WRAPPED_MODEL + HASH_ENTRY;
+            total += bytes;
+            attribute(itemId.toString(), bytes);
+        }
+        categories.put("Wrapped item models", total);
+    }
+
+    private void collectFrameModels(Map<String, List<String>> animations) {
+        if (EatingItemModelOverride.isLazyFrameModels()) {
+            frameModelCount = LazyFrameModels.getCachedModelCount();
+            categories.put("Frame models (lazy)", LazyFrameModels.getCachedBytes());
+            return;
+        }
+
+        Minecraft minecraft = Minecraft.getInstance();
+        BakedModel missingModel = minecraft.getModelManager().getMissingModel();
+        Set<String> registeredFrames = EatingItemModelOverride.getRegisteredFrameNames();
+        Map<BakedModel, Boolean> seenModels = new IdentityHashMap<>();
+        long total = 0;
+
+        for (Map.Entry<String, List<String>> entry : animations.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+
+            long bytes = 0;
+            for (String frame : entry.getValue()) {
+                if (frame == null || !registeredFrames.contains(frame)) {
+                    continue;
+                }
+
+                BakedModel model = minecraft.getModelManager().getModel(FrameModelDeduplicator.frameModelLocation(frame));
+                if (model == null || model == missingModel || seenModels.put(model, Boolean.TRUE) != null) {
+                    continue;
+                }
+
+                List<BakedQuad> quads = new ArrayList<>();
+                for (Direction side : QUAD_SIDES) {
+                    quads.addAll(model.getQuads(null, side, RandomSource.create(42L)));
+                }
+
+                frameModelCount++;
+                quadCount += quads.size();
+                for (BakedQuad quad : quads) {
+                    vertexInts += quad.getVertices().length;
+                }
+                bytes += align(OBJECT_HEADER + 8 * REFERENCE) + list(quads.size()) + LazyFrameModels.estimateQuadBytes(quads);
+            }
+
+            total += bytes;
+            attribute(entry.getKey(), bytes);
+        }
+
+        categories.put("Frame models", total);
+    }
+
+    private void collectFrameModelCache() {
+        EatingItemModelOverride.CacheStats cacheStats = EatingItemModelOverride.getCacheStats();
+        int accessEntries = EatingItemModelOverride.getAccessTimesSize();
+        long bytes = cacheStats.currentSize * (HASH_ENTRY + CACHED_MODEL)
+                + accessEntries * (HASH_ENTRY + align(OBJECT_HEADER + 8))
+                + 2 * array(tableSize(cacheStats.maxSize));
+        categories.put("Frame model cache", bytes);
+    }
+
+    private void collectActiveAnimations() {
+        Map<Integer, EatingAnimationHandler.EatingAnimationState> states = EatingAnimationHandler.getActiveAnimationStates();
+        // Working map entries plus the two published buffers (int key array and value array each).
+        long bytes = states.size() * (HASH_ENTRY + ANIMATION_STATE + string(null)) + 4 * array(tableSize(states.size()));
+        for (EatingAnimationHandler.EatingAnimationState state : states.values()) {
+            bytes += string(state.getItemId());
+        }
+        categories.put("Active animations", bytes);
+    }
+
+    private void collectDelayedPackets() {
+        List<NetworkHandler.EatingAnimationPacket> packets = ClientNetworkHandler.getDelayedPackets();
+        long bytes = 0;
+        for (NetworkHandler.EatingAnimationPacket packet : packets) {
+            bytes += DELAYED_PACKET + ANIMATION_PACKET + string(packet.getItemId());
+        }
+        categories.put("Delayed packet queue", bytes);
+    }
+
+    private void attribute(String itemId, long bytes) {
+        items.merge(itemId, bytes, Long::sum);
+        int colon = itemId.indexOf(':');
+        namespaces.merge(colon > 0 ? itemId.substring(0, colon) : "minecraft", bytes, Long::sum);
+    }
+
+    public long getTotalBytes() {
+        return categories.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public Map<String, Long> getCategories() {
+        return categories;
+    }
+
+    public List<Map.Entry<String, Long>> getTopNamespaces(int limit) {
+        return top(namespaces, limit);
+    }
+
+    public List<Map.Entry<String, Long>> getTopItems(int limit, String namespace) {
+        Map<String, Long> filtered = namespace == null ? items : items.entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith(namespace + ":"))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        return top(filtered, limit);
+    }
+
+    public int getNamespaceCount() {
+        return namespaces.size();
+    }
+
+    public int getFrameModelCount() {
+        return frameModelCount;
+    }
+
+    public int getQuadCount() {
+        return quadCount;
+    }
+
+    public long getVertexInts() {
+        return vertexInts;
+    }
+
+    public static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format("%.1f KiB", bytes / 1024.0);
+        }
+        return String.format("%.2f MiB", bytes / (1024.0 * 1024.0));
+    }
+
+    private static List<Map.Entry<String, Long>> top(Map<String, Long> values, int limit) {
+        return values.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private static long string(String value) {
+        if (value == null) {
+            return 0;
+        }
+        // String object plus its (Latin-1) byte array.
+        return align(OBJECT_HEADER + REFERENCE + 4 + 1 + 1) + align(16 + value.length());
+    }
+
+    private static long list(int size) {
+        return align(OBJECT_HEADER + 2 * 4 + REFERENCE) + array(size);
+    }
+
+    private static long array(int length) {
+        return align(16 + length * REFERENCE);
+    }
+
+    private static int tableSize(int entries) {
+        int size = 16;
+        while (size * 0.75 < entries) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
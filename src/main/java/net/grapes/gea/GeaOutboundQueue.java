@@ -0,0 +1,175 @@
+package net.grapes.gea;
+
+import io.netty.channel.Channel;
+import net.grapes.gea.core.OutboundQueue;
+import net.minecraft.network.Connection;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.Entity;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntSupplier;
+
+// Caps GEA's animation traffic per recipient, so a burst like a server-wide feast is spread over a few ticks
+// instead of landing on weak connections together with chunk data. Packets are queued per recipient as they are
+// broadcast and drained at the end of the server tick, nearest eater first, then newest, up to the byte budget.
+// A newer packet about an eater replaces one still waiting, and whatever doesn't fit is sent on later ticks with
+// its send tick moved forward by the wait. Recipients whose connection is already backed up get nothing until
+// it drains. Everything runs on the server thread. The timeline and the gea.OutboundFlush JFR event count
+// packets here, as they are written, so superseded, expired and still-waiting packets aren't reported as sent.
+public class GeaOutboundQueue implements ServerEventHandler.PacketSink {
+    // Eaters within the same band of distance are ordered by recency alone.
+    private static final double PRIORITY_BAND = 8.0;
+
+    private final ServerEventHandler.PacketSink downstream;
+    private final IntSupplier bytesPerTick;
+    private final Map<ServerPlayer, OutboundQueue<NetworkHandler.EatingAnimationPacket>> queues = new ConcurrentHashMap<>();
+    private int tick = 0;
+    private GeaJfrEvents.OutboundFlush flushEvent = new GeaJfrEvents.OutboundFlush();
+
+    private long supersededPackets = 0;
+    private long deferredPackets = 0;
+    private long expiredPackets = 0;
+    private long congestedTicks = 0;
+
+    public GeaOutboundQueue(ServerEventHandler.PacketSink downstream, IntSupplier bytesPerTick) {
+        this.downstream = downstream;
+        this.bytesPerTick = bytesPerTick;
+    }
+
+    @Override
+    public void send(ServerPlayer recipient, NetworkHandler.EatingAnimationPacket packet) {
+        if (bytesPerTick.getAsInt() <= 0 && queues.isEmpty()) {
+            write(recipient, packet, flushEvent);
+            return;
+        }
+
+        Entity eater = recipient.level().getEntity(packet.getPlayerId());
+        int priority = eater != null ? (int) (Math.sqrt(recipient.distanceToSqr(eater)) / PRIORITY_BAND) : Integer.MAX_VALUE;
+        if (queues.computeIfAbsent(recipient, key -> new OutboundQueue<>())
+                .offer(packet.getPlayerId(), packet, packet.encodedSize(), priority, tick)) {
+            supersededPackets++;
+        }
+    }
+
+    void flush(int serverTick) {
+        // Packets offered from here on belong to the next tick.
+        tick = serverTick + 1;
+        GeaJfrEvents.OutboundFlush event = flushEvent;
+        flushEvent = new GeaJfrEvents.OutboundFlush();
+        if (queues.isEmpty()) {
+            commit(event);
+            return;
+        }
+
+        int budget = bytesPerTick.getAsInt();
+        int recipientBudget = budget > 0 ? budget : Integer.MAX_VALUE;
+        queues.entrySet().removeIf(entry -> {
+            ServerPlayer recipient = entry.getKey();
+            OutboundQueue<NetworkHandler.EatingAnimationPacket> queue = entry.getValue();
+            if (recipient.hasDisconnected()) {
+                return true;
+            }
+            if (isCongested(recipient)) {
+                congestedTicks++;
+                return false;
+            }
+
+            queue.drain(recipientBudget, serverTick, (packet, waitedTicks) -> {
+                NetworkHandler.EatingAnimationPacket delayed = packet.delayedBy(waitedTicks);
+                if (delayed.isEating() && delayed.getSendTick() - delayed.getStartTick() >= delayed.getUseDuration()) {
+                    // The animation would be over by the time it arrived.
+                    expiredPackets++;
+                    event.expired++;
+                    return false;
+                }
+                if (waitedTicks > 0) {
+                    deferredPackets++;
+                    event.deferred++;
+                }
+                write(recipient, delayed, event);
+                return true;
+            });
+            return queue.isIdle();
+        });
+        commit(event);
+    }
+
+    private void write(ServerPlayer recipient, NetworkHandler.EatingAnimationPacket packet, GeaJfrEvents.OutboundFlush event) {
+        downstream.send(recipient, packet);
+        int size = packet.encodedSize();
+        if (GeaTimeline.isRecording()) {
+            GeaTimeline.recordPacket(size);
+        }
+        event.packets++;
+        event.bytes += size;
+    }
+
+    // Covers the packets written since the previous flush, including ones that bypassed an unlimited budget.
+    private void commit(GeaJfrEvents.OutboundFlush event) {
+        if (event.packets > 0 || event.expired > 0 || !queues.isEmpty()) {
+            if (event.shouldCommit()) {
+                event.queued = getQueuedPacketCount();
+                event.commit();
+            }
+        }
+    }
+
+    // Packets waiting for others about an eater that left would only be delayed on arrival and then dropped.
+    void forgetEater(int entityId) {
+        for (OutboundQueue<NetworkHandler.EatingAnimationPacket> queue : queues.values()) {
+            queue.remove(entityId);
+        }
+    }
+
+    void forgetRecipient(ServerPlayer recipient) {
+        queues.remove(recipient);
+    }
+
+    void clear() {
+        queues.clear();
+    }
+
+    int getQueuedPacketCount() {
+        int count = 0;
+        for (OutboundQueue<NetworkHandler.EatingAnimationPacket> queue : queues.values()) {
+            count += queue.size();
+        }
+        return count;
+    }
+
+    long getQueuedBytes() {
+        long bytes = 0;
+        for (OutboundQueue<NetworkHandler.EatingAnimationPacket> queue : queues.values()) {
+            bytes += queue.queuedBytes();
+        }
+        return bytes;
+    }
+
+    long getSupersededPackets() {
+        return supersededPackets;
+    }
+
+    long getDeferredPackets() {
+        return deferredPackets;
+    }
+
+    long getExpiredPackets() {
+        return expiredPackets;
+    }
+
+    long getCongestedTicks() {
+        return congestedTicks;
+    }
+
+    // Netty marks a channel unwritable once its outbound buffer passes the high water mark, i.e. the client isn't
+    // keeping up with what the server already sent. Fake players have no channel.
+    private static boolean isCongested(ServerPlayer recipient) {
+        if (recipient.connection == null) {
+            return false;
+        }
+        Connection connection = recipient.connection.connection;
+        Channel channel = connection != null ? connection.channel() : null;
+        return channel != null && !channel.isWritable();
+    }
+}
@@ -0,0 +1,141 @@
+package net.grapes.gea;
+
+import com.mojang.blaze3d.platform.InputConstants;
+import net.minecraft.client.KeyMapping;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.gui.GuiGraphics;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.client.event.RegisterGuiOverlaysEvent;
+import net.minecraftforge.client.event.RegisterKeyMappingsEvent;
+import net.minecraftforge.client.gui.overlay.ForgeGui;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Live GEA numbers for testers. GEA code is only timed while the overlay is visible.
+@Mod.EventBusSubscriber(modid = GrapesEatingAnimation.MODID, value = Dist.CLIENT, bus = Mod.EventBusSubscriber.Bus.MOD)
+public class GeaPerformanceOverlay {
+
+    public static final KeyMapping TOGGLE_KEY = new KeyMapping("key.gea.toggle_hud", InputConstants.UNKNOWN.getValue(), "key.categories.gea");
+
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+    private static final int BACKGROUND_COLOR = 0x90505050;
+    private static final int TEXT_COLOR = 0xE0E0E0;
+
+    private static boolean visible = false;
+
+    private static long windowStart = 0;
+    private static long windowStartTimerNanos = 0;
+    private static int windowFrames = 0;
+    private static long lastResolveCount = 0;
+    private static long lastPacketCount = 0;
+
+    private static double resolvesPerSecond = 0;
+    private static double packetsPerSecond = 0;
+    private static double msPerFrame = 0;
+
+    @SubscribeEvent
+    public static void onRegisterKeyMappings(RegisterKeyMappingsEvent event) {
+        event.register(TOGGLE_KEY);
+    }
+
+    @SubscribeEvent
+    public static void onRegisterGuiOverlays(RegisterGuiOverlaysEvent event) {
+        event.registerAboveAll("performance", GeaPerformanceOverlay::render);
+    }
+
+    public static boolean toggle() {
+        visible = !visible;
+        if (visible) {
+            GeaFrameTimer.acquire(false);
+        } else {
+            GeaFrameTimer.release(false);
+        }
+        resetWindow(System.nanoTime());
+        GrapesEatingAnimation.LOGGER.info("GEA: Performance overlay {}", visible ? "enabled" : "disabled");
+        return visible;
+    }
+
+    public static boolean isVisible() {
+        return visible;
+    }
+
+    private static void resetWindow(long now) {
+        windowStart = now;
+        windowStartTimerNanos = GeaFrameTimer.getTotalNanos();
+        windowFrames = 0;
+        lastResolveCount = EatingItemModelOverride.getResolveCount();
+        lastPacketCount = ClientNetworkHandler.getReceivedPacketCount();
+    }
+
+    private static void updateRates(long now) {
+        double seconds = (now - windowStart) / (double) WINDOW_NANOS;
+        long resolveCount = EatingItemModelOverride.getResolveCount();
+        long packetCount = ClientNetworkHandler.getReceivedPacketCount();
+
+        resolvesPerSecond = (resolveCount - lastResolveCount) / seconds;
+        packetsPerSecond = (packetCount - lastPacketCount) / seconds;
+        msPerFrame = windowFrames > 0 ? (GeaFrameTimer.getTotalNanos() - windowStartTimerNanos) / 1_000_000.0 / windowFrames : 0;
+
+        resetWindow(now);
+    }
+
+    private static void render(ForgeGui gui, GuiGraphics guiGraphics, float partialTick, int screenWidth, int screenHeight) {
+        Minecraft minecraft = Minecraft.getInstance();
+        if (!visible || minecraft.options.hideGui) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        windowFrames++;
+        if (now - windowStart >= WINDOW_NANOS) {
+            updateRates(now);
+        }
+
+        EatingItemModelOverride.CacheStats cacheStats = EatingItemModelOverride.getCacheStats();
+        EatingAnimationHandler.AnimationStats animationStats = EatingAnimationHandler.getAnimationStats();
+        long lookups = cacheStats.hits + cacheStats.misses;
+
+        List<String> lines = new ArrayList<>();
+        lines.add("GEA performance");
+        lines.add(String.format("Resolve calls: %.0f/s", resolvesPerSecond));
+        lines.add(String.format("Frame cache: %d hits, %d misses (%.1f%% hit)",
+                cacheStats.hits, cacheStats.misses, lookups > 0 ? cacheStats.hits * 100.0 / lookups : 0.0));
+        lines.add(String.format("Animation states: %d/%d", animationStats.activeCount, animationStats.maxCapacity));
+        lines.add(String.format("Delayed packets: %d queued, %d dropped",
+                ClientNetworkHandler.getDelayedPacketCount(), ClientNetworkHandler.getDroppedPacketCount()));
+        lines.add(String.format("Animation packets: %.1f/s", packetsPerSecond));
+        long rttNanos = ClientNetworkHandler.getSmoothedRttNanos();
+        lines.add(rttNanos >= 0
+                ? String.format("GEA channel RTT: %.1f ms", rttNanos / 1_000_000.0)
+                : String.format("GEA channel RTT: n/a (assuming %.1f ms one way)", ClientNetworkHandler.getOneWayDelayNanos() / 1_000_000.0));
+        lines.add(String.format("GEA time: %.3f ms/frame", msPerFrame));
+
+        int y = 2;
+        for (String line : lines) {
+            int width = minecraft.font.width(line);
+            int x = screenWidth - width - 2;
+            guiGraphics.fill(x - 1, y - 1, x + width + 1, y + minecraft.font.lineHeight - 1, BACKGROUND_COLOR);
+            guiGraphics.drawString(minecraft.font, line, x, y, TEXT_COLOR, false);
+            y += minecraft.font.lineHeight;
+        }
+    }
+
+    @Mod.EventBusSubscriber(modid = GrapesEatingAnimation.MODID, value = Dist.CLIENT)
+    public static class KeyHandler {
+
+        @SubscribeEvent
+        public static void onClientTick(TickEvent.ClientTickEvent event) {
+            if (event.phase != TickEvent.Phase.END) {
+                return;
+            }
+
+            while (TOGGLE_KEY.consumeClick()) {
+                toggle();
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package net.grapes.gea;
+
+import net.minecraft.util.profiling.ProfilerFiller;
+
+// Named sections for the F3 pie chart and /debug reports. Launch with -Dgea.profiler=false to turn them off;
+// the flag is a static final, so the JIT folds the disabled push/pop calls (and their profiler lookups) away.
+public final class GeaProfiler {
+    public static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("gea.profiler"));
+
+    public static final String RESOLVE = "gea:resolve";
+    public static final String UPDATE_ANIMATION = "gea:updateAnimation";
+    public static final String CLEANUP = "gea:cleanup";
+    public static final String INCOMING_PACKETS = "gea:incomingPackets";
+    public static final String DELAYED_PACKETS = "gea:delayedPackets";
+    public static final String SERVER_SYNC = "gea:sync";
+    public static final String NEARBY_PLAYERS = "gea:nearbyPlayers";
+
+    private GeaProfiler() {
+    }
+
+    public static void push(ProfilerFiller profiler, String section) {
+        if (ENABLED) {
+            profiler.push(section);
+        }
+    }
+
+    public static void popPush(ProfilerFiller profiler, String section) {
+        if (ENABLED) {
+            profiler.popPush(section);
+        }
+    }
+
+    public static void pop(ProfilerFiller profiler) {
+        if (ENABLED) {
+            profiler.pop();
+        }
+    }
+}
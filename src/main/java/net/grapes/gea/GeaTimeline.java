@@ -0,0 +1,159 @@
+package net.grapes.gea;
+
+import net.grapes.gea.core.TickTimeline;
+import net.minecraft.Util;
+import net.minecraftforge.event.server.ServerStoppingEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.loading.FMLPaths;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+
+// Per-tick time series of GEA's server work, toggled with /gea timeline. ServerEventHandler adds to the counters
+// as it broadcasts and closes a row at the end of each server tick; rows go into a memory-mapped ring file under
+// gea-timeline/ that never grows past its capacity. Everything except the file IO runs on the server thread.
+@Mod.EventBusSubscriber(modid = GrapesEatingAnimation.MODID)
+public class GeaTimeline {
+    public static final int DEFAULT_CAPACITY = 72000; // one hour of ticks
+    public static final int MAX_CAPACITY = 1728000; // one day of ticks, ~92 MiB
+
+    private static final Path TIMELINE_DIR = FMLPaths.GAMEDIR.get().resolve("gea-timeline");
+    private static final DateTimeFormatter FILE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneId.systemDefault());
+
+    private static TickTimeline timeline;
+    private static Path timelineFile;
+    private static Path lastFile;
+
+    private static int broadcasts = 0;
+    private static int recipients = 0;
+    private static int packets = 0;
+    private static long bytes = 0;
+    private static long nearbyNanos = 0;
+
+    public static boolean isRecording() {
+        return timeline != null;
+    }
+
+    public static Path getFile() {
+        return timelineFile != null ? timelineFile : lastFile;
+    }
+
+    public static long getRecordedTicks() {
+        return timeline != null ? timeline.written() : 0;
+    }
+
+    // Packets and bytes are counted separately by recordPacket, when the outbound queue actually sends them.
+    static void recordBroadcast(int recipientCount) {
+        broadcasts++;
+        recipients += recipientCount;
+    }
+
+    static void recordPacket(int packetBytes) {
+        packets++;
+        bytes += packetBytes;
+    }
+
+    static void addNearbyNanos(long nanos) {
+        nearbyNanos += nanos;
+    }
+
+    static void endTick(int serverTick, int activeEaters, long syncNanos) {
+        TickTimeline current = timeline;
+        if (current == null) {
+            return;
+        }
+
+        current.append(System.currentTimeMillis(), serverTick, activeEaters, broadcasts, recipients, packets,
+                bytes, syncNanos, nearbyNanos);
+        resetCounters();
+    }
+
+    public static Path start(int capacity) throws IOException {
+        if (timeline != null) {
+            throw new IllegalStateException("A GEA timeline is already recording to " + timelineFile);
+        }
+
+        Files.createDirectories(TIMELINE_DIR);
+        Path file = TIMELINE_DIR.resolve("gea-timeline-" + FILE_FORMAT.format(Instant.now()) + ".bin");
+        timeline = TickTimeline.create(file, capacity);
+        timelineFile = file;
+        resetCounters();
+
+        GrapesEatingAnimation.LOGGER.info("GEA: Recording tick timeline to {} ({} ticks, {} KiB)",
+                file, capacity, timeline.fileSize() / 1024);
+        return file;
+    }
+
+    // Flushing the mapping can block on the disk, so the file is closed on the IO pool.
+    public static CompletableFuture<Path> stop() {
+        TickTimeline current = timeline;
+        Path file = timelineFile;
+        if (current == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("No GEA timeline is recording"));
+        }
+
+        timeline = null;
+        timelineFile = null;
+        lastFile = file;
+
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                current.close();
+                GrapesEatingAnimation.LOGGER.info("GEA: Stopped tick timeline after {} ticks", current.written());
+                return file;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, Util.ioPool());
+    }
+
+    // Exports the recording in progress, or the last one if recording has stopped, next to the ring file.
+    // A live recording is copied on the calling thread so the CSV ends at the tick the export was asked for.
+    public static CompletableFuture<Path> exportCsv() {
+        TickTimeline current = timeline;
+        Path file = getFile();
+        if (file == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("No GEA timeline has been recorded"));
+        }
+
+        TickTimeline.Snapshot liveSnapshot = current != null ? current.snapshot() : null;
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                TickTimeline.Snapshot snapshot = liveSnapshot != null ? liveSnapshot : TickTimeline.read(file);
+                String name = file.getFileName().toString();
+                Path csvFile = file.resolveSibling(name.substring(0, name.length() - ".bin".length()) + ".csv");
+                try (BufferedWriter writer = Files.newBufferedWriter(csvFile, StandardCharsets.UTF_8)) {
+                    snapshot.writeCsv(writer);
+                }
+                GrapesEatingAnimation.LOGGER.info("GEA: Exported {} timeline ticks to {}", snapshot.rowCount(), csvFile);
+                return csvFile;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, Util.ioPool());
+    }
+
+    @SubscribeEvent
+    public static void onServerStopping(ServerStoppingEvent event) {
+        if (timeline != null) {
+            stop();
+        }
+    }
+
+    private static void resetCounters() {
+        broadcasts = 0;
+        recipients = 0;
+        packets = 0;
+        bytes = 0;
+        nearbyNanos = 0;
+    }
+}
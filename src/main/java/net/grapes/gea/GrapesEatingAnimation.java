@@ -10,7 +10,6 @@ package net.grapes.gea;
 
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.client.event.RegisterClientReloadListenersEvent;
-import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.fml.DistExecutor;
 import net.minecraftforge.fml.ModLoadingContext;
 import net.minecraftforge.fml.common.Mod;
@@ -31,6 +30,7 @@ public class GrapesEatingAnimation {
         var modEventBus = FMLJavaModLoadingContext.get().getModEventBus();
 
         modEventBus.addListener(this::commonSetup);
+        ModLoadingContext.get().registerConfig(ModConfig.Type.SERVER, EatingAnimationConfig.SERVER_SPEC);
 
         DistExecutor.unsafeRunWhenOn(Dist.CLIENT, () -> () -> {
             modEventBus.addListener(this::clientSetup);
@@ -43,24 +43,30 @@ public class GrapesEatingAnimation {
 
     private void commonSetup(final FMLCommonSetupEvent event) {
         LOGGER.info("GEA: Setting up common components");
+        EatingAnimationConfig.startLoading();
         NetworkHandler.register();
+        EatingAnimationConfig.addChangeListener(AnimationTableSync::onAnimationsChanged);
+        EatingAnimationConfig.startWatching();
         LOGGER.info("GEA: Common setup complete");
     }
 
     private void clientSetup(final FMLClientSetupEvent event) {
         LOGGER.info("GEA: Setting up client-side components");
-        MinecraftForge.EVENT_BUS.register(new EatingAnimationHandler());
+        // EatingAnimationHandler's local prediction runs from ClientNetworkHandler's client tick.
         ClientNetworkHandler.init();
-        LOGGER.info("GEA: Client setup complete, registered EatingAnimationHandler");
+        EatingAnimationConfig.addChangeListener(EatingAnimationHandler::onAnimationsChanged);
+        LOGGER.info("GEA: Client setup complete");
     }
 
     private void registerClientReloadListeners(RegisterClientReloadListenersEvent event) {
         LOGGER.info("GEA: Registering reload listeners");
         event.registerReloadListener((preparationBarrier, resourceManager, profilerFiller, profilerFiller2, executor, executor2) -> {
-            return preparationBarrier.wait(null).thenRunAsync(() -> {
-                LOGGER.info("GEA: Resource pack reloaded, reloading animation config");
-                EatingAnimationConfig.reloadConfig();
-            }, executor2);
+            return EatingAnimationConfig.prepareResourcePackAnimations(resourceManager, executor)
+                    .thenCompose(preparationBarrier::wait)
+                    .thenAcceptAsync(animations -> {
+                        LOGGER.info("GEA: Resource pack reloaded, applying {} resource pack animations", animations.size());
+                        EatingAnimationConfig.applyResourcePackAnimations(animations);
+                    }, executor2);
         });
     }
 }
@@ -0,0 +1,233 @@
+package net.grapes.gea;
+
+import net.grapes.gea.core.ResourceLocations;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.block.model.BakedQuad;
+import net.minecraft.client.renderer.block.model.BlockElement;
+import net.minecraft.client.renderer.block.model.ItemOverrides;
+import net.minecraft.client.renderer.block.model.ItemTransforms;
+import net.minecraft.client.renderer.texture.MissingTextureAtlasSprite;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import net.minecraft.client.resources.model.BakedModel;
+import net.minecraft.client.resources.model.BlockModelRotation;
+import net.minecraft.core.Direction;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.inventory.InventoryMenu;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import net.minecraftforge.client.model.geometry.UnbakedGeometryHelper;
+
+import javax.annotation.Nullable;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Generates flat item quads for animation frames on demand (lazyFrameModels), instead of baking a
+// model per frame at resource load. Only the frame textures need to be in the block atlas. The quads are
+// shared by every item using a frame; each item's base model gets its own light view of them, so transforms
+// and ambient occlusion always come from the item being rendered.
+@OnlyIn(Dist.CLIENT)
+public class LazyFrameModels {
+
+    private static final long QUAD_OVERHEAD_BYTES = 48;
+    private static final long MODEL_OVERHEAD_BYTES = 96;
+    private static final long VIEW_BYTES = 64;
+
+    private static final LinkedHashMap<String, GeneratedFrame> generatedModels = new LinkedHashMap<>(64, 0.75f, true);
+    private static final Set<String> unavailableFrames = new HashSet<>();
+    private static long cachedBytes = 0;
+    private static long generatedCount = 0;
+    private static long evictedCount = 0;
+    private static long hitCount = 0;
+    private static long missCount = 0;
+
+    @Nullable
+    public static synchronized BakedModel getFrameModel(String frameName, BakedModel baseModel) {
+        GeneratedFrame frame = generatedModels.get(frameName);
+        if (frame != null) {
+            hitCount++;
+            return frame.viewFor(baseModel);
+        }
+
+        if (unavailableFrames.contains(frameName)) {
+            return null;
+        }
+
+        missCount++;
+        frame = generate(frameName);
+        if (frame == null) {
+            unavailableFrames.add(frameName);
+            return null;
+        }
+
+        generatedModels.put(frameName, frame);
+        cachedBytes += frame.estimatedBytes;
+        generatedCount++;
+        BakedModel view = frame.viewFor(baseModel);
+        evictToBudget(EatingAnimationConfig.getFrameQuadCacheBytes());
+        return view;
+    }
+
+    public static synchronized void clear() {
+        generatedModels.clear();
+        unavailableFrames.clear();
+        cachedBytes = 0;
+    }
+
+    static synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    static synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    static synchronized long getMissCount() {
+        return missCount;
+    }
+
+    static synchronized int getCachedModelCount() {
+        return generatedModels.size();
+    }
+
+    public static synchronized String getStats() {
+        return String.format("LazyFrameModels{models=%d, bytes=%d/%d, generated=%d, evicted=%d}",
+                generatedModels.size(), cachedBytes, EatingAnimationConfig.getFrameQuadCacheBytes(),
+                generatedCount, evictedCount);
+    }
+
+    private static void evictToBudget(long budgetBytes) {
+        Iterator<Map.Entry<String, GeneratedFrame>> iterator = generatedModels.entrySet().iterator();
+        // Keep at least the model we just generated.
+        while (cachedBytes > budgetBytes && generatedModels.size() > 1 && iterator.hasNext()) {
+            GeneratedFrame evicted = iterator.next().getValue();
+            iterator.remove();
+            cachedBytes -= evicted.estimatedBytes;
+            evictedCount++;
+        }
+    }
+
+    @Nullable
+    private static GeneratedFrame generate(String frameName) {
+        if (!ResourceLocations.isValid(frameName)) {
+            GrapesEatingAnimation.LOGGER.debug("GEA: Invalid lazy frame ResourceLocation: {}", frameName);
+            return null;
+        }
+
+        try {
+            ResourceLocation frameLocation = new ResourceLocation(frameName);
+            ResourceLocation spriteLocation = new ResourceLocation(frameLocation.getNamespace(), "item/" + frameLocation.getPath());
+
+            TextureAtlasSprite sprite = Minecraft.getInstance().getModelManager()
+                    .getAtlas(InventoryMenu.BLOCK_ATLAS)
+                    .getSprite(spriteLocation);
+
+            if (sprite.contents().name().equals(MissingTextureAtlasSprite.getLocation())) {
+                GrapesEatingAnimation.LOGGER.debug("GEA: No stitched texture for lazy frame {}", spriteLocation);
+                return null;
+            }
+
+            List<BlockElement> elements = UnbakedGeometryHelper.createUnbakedItemElements(0, sprite.contents());
+            List<BakedQuad> quads = UnbakedGeometryHelper.bakeElements(elements, material -> sprite,
+                    BlockModelRotation.X0_Y0, frameLocation);
+
+            GrapesEatingAnimation.LOGGER.debug("GEA: Generated {} quads for lazy frame {}", quads.size(), frameName);
+            return new GeneratedFrame(List.copyOf(quads), sprite);
+        } catch (Exception e) {
+            GrapesEatingAnimation.LOGGER.warn("GEA: Failed to generate lazy frame model for {}: {}", frameName, e.getMessage());
+            return null;
+        }
+    }
+
+    static long estimateQuadBytes(List<BakedQuad> quads) {
+        long bytes = 0;
+        for (BakedQuad quad : quads) {
+            bytes += QUAD_OVERHEAD_BYTES + 16 + quad.getVertices().length * 4L;
+        }
+        return bytes;
+    }
+
+    private static class GeneratedFrame {
+        private final List<BakedQuad> quads;
+        private final TextureAtlasSprite sprite;
+        // Usually one entry; only items that share a frame add more. Dropped with the frame on eviction or reload.
+        private final Map<BakedModel, GeneratedFrameModel> views = new IdentityHashMap<>(2);
+        private long estimatedBytes;
+
+        GeneratedFrame(List<BakedQuad> quads, TextureAtlasSprite sprite) {
+            this.quads = quads;
+            this.sprite = sprite;
+            this.estimatedBytes = MODEL_OVERHEAD_BYTES + estimateQuadBytes(quads);
+        }
+
+        // Called with the class lock held.
+        GeneratedFrameModel viewFor(BakedModel baseModel) {
+            GeneratedFrameModel view = views.get(baseModel);
+            if (view == null) {
+                view = new GeneratedFrameModel(quads, sprite, baseModel);
+                views.put(baseModel, view);
+                estimatedBytes += VIEW_BYTES;
+                cachedBytes += VIEW_BYTES;
+            }
+            return view;
+        }
+    }
+
+    private static class GeneratedFrameModel implements BakedModel {
+        private final List<BakedQuad> quads;
+        private final TextureAtlasSprite sprite;
+        private final BakedModel baseModel;
+
+        GeneratedFrameModel(List<BakedQuad> quads, TextureAtlasSprite sprite, BakedModel baseModel) {
+            this.quads = quads;
+            this.sprite = sprite;
+            this.baseModel = baseModel;
+        }
+
+        @Override
+        public List<BakedQuad> getQuads(@Nullable BlockState state, @Nullable Direction side, RandomSource rand) {
+            return side == null ? quads : List.of();
+        }
+
+        @Override
+        public boolean useAmbientOcclusion() {
+            return baseModel.useAmbientOcclusion();
+        }
+
+        @Override
+        public boolean isGui3d() {
+            return false;
+        }
+
+        @Override
+        public boolean usesBlockLight() {
+            return false;
+        }
+
+        @Override
+        public boolean isCustomRenderer() {
+            return false;
+        }
+
+        @Override
+        public TextureAtlasSprite getParticleIcon() {
+            return sprite;
+        }
+
+        @Override
+        public ItemTransforms getTransforms() {
+            return baseModel.getTransforms();
+        }
+
+        @Override
+        public ItemOverrides getOverrides() {
+            return ItemOverrides.EMPTY;
+        }
+    }
+}
@@ -6,16 +6,22 @@
 
 package net.grapes.gea;
 
+import net.grapes.gea.core.AnimationPacketCodec;
+import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.item.Item;
+import net.minecraftforge.network.NetworkDirection;
 import net.minecraftforge.network.NetworkEvent;
 import net.minecraftforge.network.NetworkRegistry;
 import net.minecraftforge.network.simple.SimpleChannel;
 
+import java.util.Optional;
 import java.util.function.Supplier;
 
 public class NetworkHandler {
-    private static final String PROTOCOL_VERSION = "1";
+    private static final String PROTOCOL_VERSION = "6";
     public static final SimpleChannel INSTANCE = NetworkRegistry.newSimpleChannel(
             new ResourceLocation(GrapesEatingAnimation.MODID, "main"),
             () -> PROTOCOL_VERSION,
@@ -34,56 +40,317 @@ public class NetworkHandler {
                 EatingAnimationPacket::decode,
                 EatingAnimationPacket::handle);
 
+        INSTANCE.registerMessage(id(), AnimationTableHashPacket.class,
+                AnimationTableHashPacket::encode,
+                AnimationTableHashPacket::decode,
+                AnimationTableHashPacket::handle,
+                Optional.of(NetworkDirection.PLAY_TO_CLIENT));
+
+        INSTANCE.registerMessage(id(), AnimationTableRequestPacket.class,
+                AnimationTableRequestPacket::encode,
+                AnimationTableRequestPacket::decode,
+                AnimationTableRequestPacket::handle,
+                Optional.of(NetworkDirection.PLAY_TO_SERVER));
+
+        INSTANCE.registerMessage(id(), AnimationTableChunkPacket.class,
+                AnimationTableChunkPacket::encode,
+                AnimationTableChunkPacket::decode,
+                AnimationTableChunkPacket::handle,
+                Optional.of(NetworkDirection.PLAY_TO_CLIENT));
+
+        INSTANCE.registerMessage(id(), DurationCorrectionPacket.class,
+                DurationCorrectionPacket::encode,
+                DurationCorrectionPacket::decode,
+                DurationCorrectionPacket::handle,
+                Optional.of(NetworkDirection.PLAY_TO_CLIENT));
+
+        INSTANCE.registerMessage(id(), LatencyPingPacket.class,
+                LatencyPingPacket::encode,
+                LatencyPingPacket::decode,
+                LatencyPingPacket::handle,
+                Optional.of(NetworkDirection.PLAY_TO_SERVER));
+
+        INSTANCE.registerMessage(id(), LatencyPongPacket.class,
+                LatencyPongPacket::encode,
+                LatencyPongPacket::decode,
+                LatencyPongPacket::handle,
+                Optional.of(NetworkDirection.PLAY_TO_CLIENT));
+
+        INSTANCE.registerMessage(id(), BenchmarkPacket.class,
+                BenchmarkPacket::encode,
+                BenchmarkPacket::decode,
+                BenchmarkPacket::handle,
+                Optional.of(NetworkDirection.PLAY_TO_CLIENT));
+
         GrapesEatingAnimation.LOGGER.info("GEA: Network handler registered");
     }
 
     public static class EatingAnimationPacket {
         private final int playerId;
         private final String itemId;
+        // Index of the item's animation variant in the shared animation table (AnimationVariants).
+        private final int variant;
         private final int useDuration;
         private final boolean isEating;
         private final int startTick;
+        // The eater's tick count when the packet was sent; sendTick - startTick is the animation's age at send.
+        private final int sendTick;
+        // On the client packets are built by decode, so construction time is receive time.
+        private final long receivedNanos;
 
-        public EatingAnimationPacket(int playerId, String itemId, int useDuration, boolean isEating, int startTick) {
+        public EatingAnimationPacket(int playerId, String itemId, int variant, int useDuration, boolean isEating, int startTick, int sendTick) {
             this.playerId = playerId;
             this.itemId = itemId;
+            this.variant = variant;
             this.useDuration = useDuration;
             this.isEating = isEating;
             this.startTick = startTick;
+            this.sendTick = sendTick;
+            this.receivedNanos = System.nanoTime();
         }
 
         public static void encode(EatingAnimationPacket msg, FriendlyByteBuf buf) {
-            buf.writeInt(msg.playerId);
-            buf.writeUtf(msg.itemId != null ? msg.itemId : "");
-            buf.writeInt(msg.useDuration);
-            buf.writeBoolean(msg.isEating);
-            buf.writeInt(msg.startTick);
+            AnimationPacketCodec.encode(buf, msg.playerId, msg.itemId, msg.variant, msg.useDuration, msg.isEating, msg.startTick, msg.sendTick);
         }
 
         public static EatingAnimationPacket decode(FriendlyByteBuf buf) {
-            int playerId = buf.readInt();
-            String itemId = buf.readUtf();
-            int useDuration = buf.readInt();
-            boolean isEating = buf.readBoolean();
-            int startTick = buf.readInt();
-
-            return new EatingAnimationPacket(playerId, itemId.isEmpty() ? null : itemId, useDuration, isEating, startTick);
+            return AnimationPacketCodec.decode(buf, EatingAnimationPacket::new);
         }
 
         public static void handle(EatingAnimationPacket msg, Supplier<NetworkEvent.Context> contextSupplier) {
             NetworkEvent.Context context = contextSupplier.get();
-            context.enqueueWork(() -> {
-                if (context.getDirection().getReceptionSide().isClient()) {
-                    ClientNetworkHandler.handleEatingAnimationPacket(msg);
-                }
-            });
+            if (context.getDirection().getReceptionSide().isClient()) {
+                // Applied by the client tick instead of scheduling a main-thread task per packet.
+                ClientNetworkHandler.offerEatingAnimationPacket(msg);
+            }
             context.setPacketHandled(true);
         }
 
+        // The same state sent ticks later than planned, so the client still works out the animation's true age.
+        public EatingAnimationPacket delayedBy(int ticks) {
+            return ticks > 0 ? new EatingAnimationPacket(playerId, itemId, variant, useDuration, isEating, startTick, sendTick + ticks) : this;
+        }
+
+        public int encodedSize() {
+            return AnimationPacketCodec.encodedSize(itemId, variant);
+        }
+
         public int getPlayerId() { return playerId; }
         public String getItemId() { return itemId; }
+        public int getVariant() { return variant; }
         public int getUseDuration() { return useDuration; }
         public boolean isEating() { return isEating; }
         public int getStartTick() { return startTick; }
+        public int getSendTick() { return sendTick; }
+        public long getReceivedNanos() { return receivedNanos; }
+    }
+
+    public static class AnimationTableHashPacket {
+        private final String hash;
+        private final int size;
+
+        public AnimationTableHashPacket(String hash, int size) {
+            this.hash = hash;
+            this.size = size;
+        }
+
+        public static void encode(AnimationTableHashPacket msg, FriendlyByteBuf buf) {
+            buf.writeUtf(msg.hash, 64);
+            buf.writeVarInt(msg.size);
+        }
+
+        public static AnimationTableHashPacket decode(FriendlyByteBuf buf) {
+            return new AnimationTableHashPacket(buf.readUtf(64), buf.readVarInt());
+        }
+
+        public static void handle(AnimationTableHashPacket msg, Supplier<NetworkEvent.Context> contextSupplier) {
+            NetworkEvent.Context context = contextSupplier.get();
+            context.enqueueWork(() -> ClientNetworkHandler.handleAnimationTableHash(msg));
+            context.setPacketHandled(true);
+        }
+
+        public String getHash() { return hash; }
+        public int getSize() { return size; }
+    }
+
+    public static class AnimationTableRequestPacket {
+        private final String hash;
+
+        public AnimationTableRequestPacket(String hash) {
+            this.hash = hash;
+        }
+
+        public static void encode(AnimationTableRequestPacket msg, FriendlyByteBuf buf) {
+            buf.writeUtf(msg.hash, 64);
+        }
+
+        public static AnimationTableRequestPacket decode(FriendlyByteBuf buf) {
+            return new AnimationTableRequestPacket(buf.readUtf(64));
+        }
+
+        public static void handle(AnimationTableRequestPacket msg, Supplier<NetworkEvent.Context> contextSupplier) {
+            NetworkEvent.Context context = contextSupplier.get();
+            ServerPlayer sender = context.getSender();
+            if (sender != null) {
+                context.enqueueWork(() -> AnimationTableSync.handleTableRequest(sender, msg.hash));
+            }
+            context.setPacketHandled(true);
+        }
+
+        public String getHash() { return hash; }
+    }
+
+    public static class AnimationTableChunkPacket {
+        public static final int MAX_CHUNK_SIZE = 32 * 1024;
+
+        private final String hash;
+        private final int index;
+        private final int total;
+        private final byte[] data;
+
+        public AnimationTableChunkPacket(String hash, int index, int total, byte[] data) {
+            this.hash = hash;
+            this.index = index;
+            this.total = total;
+            this.data = data;
+        }
+
+        public static void encode(AnimationTableChunkPacket msg, FriendlyByteBuf buf) {
+            buf.writeUtf(msg.hash, 64);
+            buf.writeVarInt(msg.index);
+            buf.writeVarInt(msg.total);
+            buf.writeByteArray(msg.data);
+        }
+
+        public static AnimationTableChunkPacket decode(FriendlyByteBuf buf) {
+            String hash = buf.readUtf(64);
+            int index = buf.readVarInt();
+            int total = buf.readVarInt();
+            byte[] data = buf.readByteArray(MAX_CHUNK_SIZE);
+            return new AnimationTableChunkPacket(hash, index, total, data);
+        }
+
+        public static void handle(AnimationTableChunkPacket msg, Supplier<NetworkEvent.Context> contextSupplier) {
+            NetworkEvent.Context context = contextSupplier.get();
+            context.enqueueWork(() -> ClientNetworkHandler.handleAnimationTableChunk(msg));
+            context.setPacketHandled(true);
+        }
+
+        public String getHash() { return hash; }
+        public int getIndex() { return index; }
+        public int getTotal() { return total; }
+        public byte[] getData() { return data; }
+    }
+
+    // Sent only to the eater when the server's use duration differs from the one the client predicted.
+    public static class DurationCorrectionPacket {
+        private final Item item;
+        private final int useDuration;
+
+        public DurationCorrectionPacket(Item item, int useDuration) {
+            this.item = item;
+            this.useDuration = useDuration;
+        }
+
+        public static void encode(DurationCorrectionPacket msg, FriendlyByteBuf buf) {
+            buf.writeId(BuiltInRegistries.ITEM, msg.item);
+            buf.writeVarInt(msg.useDuration);
+        }
+
+        public static DurationCorrectionPacket decode(FriendlyByteBuf buf) {
+            return new DurationCorrectionPacket(buf.readById(BuiltInRegistries.ITEM), buf.readVarInt());
+        }
+
+        public static void handle(DurationCorrectionPacket msg, Supplier<NetworkEvent.Context> contextSupplier) {
+            NetworkEvent.Context context = contextSupplier.get();
+            context.enqueueWork(() -> ClientNetworkHandler.handleDurationCorrection(msg));
+            context.setPacketHandled(true);
+        }
+
+        public int encodedSize() {
+            return AnimationPacketCodec.varIntSize(BuiltInRegistries.ITEM.getId(item)) + AnimationPacketCodec.varIntSize(useDuration);
+        }
+
+        public Item getItem() { return item; }
+        public int getUseDuration() { return useDuration; }
+    }
+
+    // The server answers straight from the network thread, so the round trip measures the channel, not tick phase.
+    public static class LatencyPingPacket {
+        private final long clientNanos;
+
+        public LatencyPingPacket(long clientNanos) {
+            this.clientNanos = clientNanos;
+        }
+
+        public static void encode(LatencyPingPacket msg, FriendlyByteBuf buf) {
+            buf.writeLong(msg.clientNanos);
+        }
+
+        public static LatencyPingPacket decode(FriendlyByteBuf buf) {
+            return new LatencyPingPacket(buf.readLong());
+        }
+
+        public static void handle(LatencyPingPacket msg, Supplier<NetworkEvent.Context> contextSupplier) {
+            NetworkEvent.Context context = contextSupplier.get();
+            INSTANCE.reply(new LatencyPongPacket(msg.clientNanos), context);
+            context.setPacketHandled(true);
+        }
+    }
+
+    public static class LatencyPongPacket {
+        private final long clientNanos;
+
+        public LatencyPongPacket(long clientNanos) {
+            this.clientNanos = clientNanos;
+        }
+
+        public static void encode(LatencyPongPacket msg, FriendlyByteBuf buf) {
+            buf.writeLong(msg.clientNanos);
+        }
+
+        public static LatencyPongPacket decode(FriendlyByteBuf buf) {
+            return new LatencyPongPacket(buf.readLong());
+        }
+
+        public static void handle(LatencyPongPacket msg, Supplier<NetworkEvent.Context> contextSupplier) {
+            NetworkEvent.Context context = contextSupplier.get();
+            if (context.getDirection().getReceptionSide().isClient()) {
+                ClientNetworkHandler.handleLatencyPong(msg);
+            }
+            context.setPacketHandled(true);
+        }
+
+        public long getClientNanos() { return clientNanos; }
+    }
+
+    // Asks the client that ran /gea bench to run the client half of the benchmark alongside the server.
+    public static class BenchmarkPacket {
+        private final int animations;
+        private final int ticks;
+
+        public BenchmarkPacket(int animations, int ticks) {
+            this.animations = animations;
+            this.ticks = ticks;
+        }
+
+        public static void encode(BenchmarkPacket msg, FriendlyByteBuf buf) {
+            buf.writeVarInt(msg.animations);
+            buf.writeVarInt(msg.ticks);
+        }
+
+        public static BenchmarkPacket decode(FriendlyByteBuf buf) {
+            return new BenchmarkPacket(buf.readVarInt(), buf.readVarInt());
+        }
+
+        public static void handle(BenchmarkPacket msg, Supplier<NetworkEvent.Context> contextSupplier) {
+            NetworkEvent.Context context = contextSupplier.get();
+            context.enqueueWork(() -> ClientBenchmark.start(
+                    Math.min(msg.animations, ServerBenchmark.MAX_ANIMATIONS), Math.min(msg.ticks, ServerBenchmark.MAX_TICKS)));
+            context.setPacketHandled(true);
+        }
+
+        public int getAnimations() { return animations; }
+        public int getTicks() { return ticks; }
     }
 }
@@ -0,0 +1,58 @@
+package net.grapes.gea;
+
+import net.grapes.gea.core.AnimationConfigParser;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.resources.Resource;
+import net.minecraft.server.packs.resources.ResourceManager;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Animation definitions shipped in resource packs as assets/<namespace>/gea/animations/*.json, in the same
+// format as gea-animations.json. Files are merged in path order; for the same path, higher packs win.
+public class ResourcePackAnimations {
+    private static final String DIRECTORY = "gea/animations";
+
+    public static Map<String, List<String>> load(ResourceManager resourceManager) {
+        long startNanos = System.nanoTime();
+        Map<ResourceLocation, List<Resource>> stacks = new TreeMap<>(resourceManager.listResourceStacks(DIRECTORY,
+                location -> location.getPath().endsWith(".json")));
+
+        Map<String, List<String>> animations = new HashMap<>();
+        int files = 0;
+        int failedFiles = 0;
+
+        for (Map.Entry<ResourceLocation, List<Resource>> stack : stacks.entrySet()) {
+            // Resource stacks are ordered from the lowest to the highest priority pack.
+            for (Resource resource : stack.getValue()) {
+                files++;
+                try (Reader reader = resource.openAsReader()) {
+                    Map<String, List<String>> fileAnimations = AnimationConfigParser.parseStreaming(reader,
+                            (itemId, previous) -> GrapesEatingAnimation.LOGGER.warn("GEA: {} in pack {} defines {} more than once, using the last definition",
+                                    stack.getKey(), resource.sourcePackId(), itemId));
+
+                    for (Map.Entry<String, List<String>> entry : fileAnimations.entrySet()) {
+                        if (animations.put(entry.getKey(), entry.getValue()) != null) {
+                            GrapesEatingAnimation.LOGGER.debug("GEA: {} in pack {} overrides the animation for {}",
+                                    stack.getKey(), resource.sourcePackId(), entry.getKey());
+                        }
+                    }
+                } catch (IOException | IllegalStateException | NumberFormatException e) {
+                    failedFiles++;
+                    GrapesEatingAnimation.LOGGER.error("GEA: Skipping animation definitions {} in pack {}: {}",
+                            stack.getKey(), resource.sourcePackId(), e.getMessage());
+                }
+            }
+        }
+
+        if (files > 0) {
+            GrapesEatingAnimation.LOGGER.info("GEA: Loaded {} animations from {} resource pack files ({} failed) in {} ms",
+                    animations.size(), files, failedFiles, (System.nanoTime() - startNanos) / 1_000_000);
+        }
+        return animations;
+    }
+}
@@ -0,0 +1,202 @@
+package net.grapes.gea;
+
+import com.mojang.authlib.GameProfile;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.grapes.gea.core.AnimationPacketCodec;
+import net.grapes.gea.core.BenchmarkSamples;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.InteractionHand;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.phys.Vec3;
+import net.minecraftforge.common.util.FakePlayer;
+import net.minecraftforge.common.util.FakePlayerFactory;
+import net.minecraftforge.event.server.ServerStoppingEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.registries.ForgeRegistries;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+// Server half of /gea bench: fake players eat animated items around the command source, driving the real
+// start, tick, sync and stop paths. Their packets are counted instead of sent, since no client knows them.
+@Mod.EventBusSubscriber(modid = GrapesEatingAnimation.MODID)
+public class ServerBenchmark {
+    public static final int MAX_ANIMATIONS = 1000;
+    public static final int MAX_TICKS = 20 * 60 * 10;
+    private static final double SPREAD = 24.0;
+
+    private static volatile ServerBenchmark active = null;
+
+    private final CommandSourceStack source;
+    private final List<FakePlayer> eaters = new ArrayList<>();
+    private final Set<Integer> eaterIds = new HashSet<>();
+    private final int totalTicks;
+    private final BenchmarkSamples tickNanos;
+    private final BenchmarkSamples tickAllocations;
+    private final ByteBuf scratch = Unpooled.buffer(64);
+
+    private ServerEventHandler.PacketSink previousSink;
+    private int ticksRun = 0;
+    private long tickStartNanos;
+    private long tickStartAllocated;
+    private long countedPackets = 0;
+    private long countedBytes = 0;
+    private long forwardedPackets = 0;
+    private int restarts = 0;
+
+    private ServerBenchmark(CommandSourceStack source, int totalTicks) {
+        this.source = source;
+        this.totalTicks = totalTicks;
+        this.tickNanos = new BenchmarkSamples(totalTicks);
+        this.tickAllocations = new BenchmarkSamples(totalTicks);
+    }
+
+    public static ServerBenchmark getActive() {
+        return active;
+    }
+
+    // Returns null on success, otherwise the reason the benchmark couldn't start.
+    static String start(CommandSourceStack source, int animations, int ticks) {
+        if (active != null) {
+            return "A GEA benchmark is already running";
+        }
+
+        List<Item> items = new ArrayList<>();
+        for (String key : EatingAnimationConfig.getAnimatedItemIds()) {
+            ResourceLocation itemId = ResourceLocation.tryParse(key);
+            Item item = itemId != null ? ForgeRegistries.ITEMS.getValue(itemId) : null;
+            if (item != null && new ItemStack(item).isEdible()) {
+                items.add(item);
+            }
+        }
+        if (items.isEmpty()) {
+            return "No edible items with animations are configured";
+        }
+
+        ServerBenchmark benchmark = new ServerBenchmark(source, ticks);
+        ServerLevel level = source.getLevel();
+        Vec3 origin = source.getPosition();
+
+        for (int i = 0; i < animations; i++) {
+            String name = "gea_bench_" + i;
+            FakePlayer eater = FakePlayerFactory.get(level, new GameProfile(UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8)), name));
+            double angle = i * 2.399963; // golden angle, spreads eaters evenly over a disc
+            double radius = SPREAD * Math.sqrt((i + 0.5) / animations);
+            eater.moveTo(origin.x + Math.cos(angle) * radius, origin.y, origin.z + Math.sin(angle) * radius, 0.0F, 0.0F);
+            eater.setItemInHand(InteractionHand.MAIN_HAND, new ItemStack(items.get(i % items.size())));
+            benchmark.eaters.add(eater);
+            benchmark.eaterIds.add(eater.getId());
+        }
+
+        benchmark.previousSink = ServerEventHandler.setPacketSink(benchmark::send);
+        active = benchmark;
+
+        for (FakePlayer eater : benchmark.eaters) {
+            eater.stopUsingItem();
+            eater.startUsingItem(InteractionHand.MAIN_HAND);
+        }
+
+        GrapesEatingAnimation.LOGGER.info("GEA: Benchmark started - {} synthetic eaters using {} items for {} ticks",
+                animations, items.size(), ticks);
+        return null;
+    }
+
+    private void send(ServerPlayer recipient, NetworkHandler.EatingAnimationPacket packet) {
+        if (!eaterIds.contains(packet.getPlayerId())) {
+            forwardedPackets++;
+            previousSink.send(recipient, packet);
+            return;
+        }
+
+        scratch.clear();
+        AnimationPacketCodec.encode(scratch, packet.getPlayerId(), packet.getItemId(), packet.getVariant(), packet.getUseDuration(),
+                packet.isEating(), packet.getStartTick(), packet.getSendTick());
+        countedPackets++;
+        countedBytes += scratch.readableBytes();
+    }
+
+    void beginTick() {
+        tickStartAllocated = BenchmarkSamples.threadAllocatedBytes();
+        tickStartNanos = System.nanoTime();
+
+        // Fake players aren't ticked by the server, so advance them and run the per-player check ourselves.
+        for (FakePlayer eater : eaters) {
+            eater.tickCount++;
+            ServerEventHandler.tickEatingState(eater);
+            if (!ServerEventHandler.isTrackingEater(eater)) {
+                eater.stopUsingItem();
+                eater.startUsingItem(InteractionHand.MAIN_HAND);
+                restarts++;
+            }
+        }
+    }
+
+    void endTick() {
+        tickNanos.add(System.nanoTime() - tickStartNanos);
+        if (tickStartAllocated >= 0) {
+            tickAllocations.add(BenchmarkSamples.threadAllocatedBytes() - tickStartAllocated);
+        }
+
+        if (++ticksRun >= totalTicks) {
+            finish(true);
+        }
+    }
+
+    private void finish(boolean report) {
+        for (FakePlayer eater : eaters) {
+            eater.releaseUsingItem();
+            ServerEventHandler.forgetEater(eater);
+            eater.setItemInHand(InteractionHand.MAIN_HAND, ItemStack.EMPTY);
+        }
+
+        ServerEventHandler.setPacketSink(previousSink);
+        active = null;
+
+        if (report) {
+            report();
+        }
+        GrapesEatingAnimation.LOGGER.info("GEA: Benchmark finished after {} ticks, removed {} synthetic eaters", ticksRun, eaters.size());
+    }
+
+    private void report() {
+        double seconds = ticksRun / 20.0;
+        String tickLine = String.format("§7  GEA server tick: p50 §f%.1f§7, p90 §f%.1f§7, p99 §f%.1f§7, max §f%.1f§7 µs",
+                tickNanos.percentile(50) / 1000.0, tickNanos.percentile(90) / 1000.0,
+                tickNanos.percentile(99) / 1000.0, tickNanos.max() / 1000.0);
+        String allocationLine = tickAllocations.size() > 0
+                ? String.format("§7  Allocation: §f%.1f§7 KB/tick (§f%.2f§7 MB/s at 20 TPS), p99 §f%.1f§7 KB",
+                tickAllocations.sum() / 1024.0 / ticksRun, tickAllocations.sum() / (1024.0 * 1024.0) / seconds,
+                tickAllocations.percentile(99) / 1024.0)
+                : "§7  Allocation: §funavailable on this JVM";
+        String packetLine = String.format("§7  Packets: §f%d§7 (§f%.1f§7/tick, §f%.1f§7 KB payload), §f%d§7 eating restarts, §f%d§7 real packets passed through",
+                countedPackets, countedPackets / (double) ticksRun, countedBytes / 1024.0, restarts, forwardedPackets);
+
+        source.sendSuccess(() -> Component.literal("§aGEA bench (server): §f" + eaters.size() + "§a eaters, §f" + ticksRun + "§a ticks"), false);
+        source.sendSuccess(() -> Component.literal(tickLine), false);
+        source.sendSuccess(() -> Component.literal(allocationLine), false);
+        source.sendSuccess(() -> Component.literal(packetLine), false);
+
+        GrapesEatingAnimation.LOGGER.info("GEA: Benchmark results - eaters={}, ticks={}, tickNanos p50={} p90={} p99={} max={}, allocatedBytes={}, packets={}, packetBytes={}, restarts={}",
+                eaters.size(), ticksRun, tickNanos.percentile(50), tickNanos.percentile(90), tickNanos.percentile(99), tickNanos.max(),
+                tickAllocations.sum(), countedPackets, countedBytes, restarts);
+    }
+
+    @SubscribeEvent
+    public static void onServerStopping(ServerStoppingEvent event) {
+        ServerBenchmark benchmark = active;
+        if (benchmark != null) {
+            benchmark.finish(false);
+        }
+    }
+}
@@ -1,33 +1,41 @@
 // TODO: Consider using player UUIDs instead of ServerPlayer instances as keys in ConcurrentHashMaps to avoid stale references and memory leaks.
-// TODO: Verify that cleaning up eating states on player respawn fully handles the case where player instances change.
 // TODO: Add handling for server tick resets or implement a more robust tick counter for synchronization logic.
-// TODO: Avoid potential duplicate packet sending by harmonizing performPeriodicSync and performFastSync or merging their logic.
-// TODO: Double-check if adding the center player to nearbyPlayers in getNearbyPlayers is intentional or should be excluded.
 // TODO: Optimize network packet sending by exploring batch or multicast sending if supported, instead of individual sends.
 // TODO: Add error handling around network packet sending to avoid exceptions if player disconnects mid-sync.
 // TODO: Store ResourceLocation directly in EatingState instead of String to avoid string comparison overhead and bugs.
 // TODO: Consider using player UUIDs for map keys to avoid issues with player instance identity after respawn.
-// TODO: Implement log rate limiting or toggleable debug logging to reduce log spam during high server activity.
 // TODO: Document or make sync interval and distance constants configurable for easier tuning.
 
 package net.grapes.gea;
 
+import net.grapes.gea.core.SyncPlanner;
+import net.minecraft.Util;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.util.profiling.ProfilerFiller;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.Level;
 import net.minecraft.world.phys.Vec3;
 import net.minecraftforge.event.TickEvent;
 import net.minecraftforge.event.entity.living.LivingEntityUseItemEvent;
 import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.EventPriority;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.network.PacketDistributor;
 import net.minecraftforge.registries.ForgeRegistries;
+import net.minecraftforge.server.ServerLifecycleHooks;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Mod.EventBusSubscriber(modid = GrapesEatingAnimation.MODID)
@@ -40,9 +48,26 @@ public class ServerEventHandler {
     private static final int FAST_SYNC_DURATION = 100; // 5 seconds
     private static final int NEW_PLAYER_SYNC_DELAY = 30; // 1.5 seconds
     private static final double SYNC_DISTANCE = 64.0; // 64 blocks
+    static final int STATE_CHANGE_WINDOW = 5; // 0.25 seconds
+
+    // Where eating animation packets go; /gea bench swaps it to count traffic for synthetic eaters.
+    public interface PacketSink {
+        void send(ServerPlayer recipient, NetworkHandler.EatingAnimationPacket packet);
+    }
+
+    static final PacketSink NETWORK_SINK = (recipient, packet) ->
+            NetworkHandler.INSTANCE.send(PacketDistributor.PLAYER.with(() -> recipient), packet);
+    // Real traffic goes through the per-recipient budget, which sends to the network at the end of each tick.
+    private static final GeaOutboundQueue outboundQueue = new GeaOutboundQueue(NETWORK_SINK, EatingAnimationConfig::getOutboundBytesPerTick);
+    private static volatile PacketSink packetSink = outboundQueue;
 
     private static int serverTick = 0;
+    private static long lastSyncNanos = 0;
     private static final ConcurrentHashMap<ServerPlayer, Integer> newPlayerConnections = new ConcurrentHashMap<>();
+    // What observers were last told about each eater whose state is changing; see flushStateChanges.
+    private static final ConcurrentHashMap<ServerPlayer, StateChanges> stateChanges = new ConcurrentHashMap<>();
+    private static long coalescedStateChanges = 0;
+    private static CompletableFuture<SyncPlan> pendingSyncPlan = null;
 
     @SubscribeEvent
     public static void onServerTick(TickEvent.ServerTickEvent event) {
@@ -52,18 +77,47 @@ public class ServerEventHandler {
 
         serverTick++;
 
+        ServerBenchmark benchmark = ServerBenchmark.getActive();
+        if (benchmark != null) {
+            benchmark.beginTick();
+        }
+
+        long startNanos = System.nanoTime();
+        ProfilerFiller profiler = event.getServer().getProfiler();
+        GeaProfiler.push(profiler, GeaProfiler.SERVER_SYNC);
+
+        flushStateChanges();
         handleNewPlayerSync();
+        dispatchReadySyncPlan();
 
-        if (serverTick % PERIODIC_SYNC_INTERVAL == 0) {
-            performPeriodicSync();
+        if (serverTick % FAST_SYNC_INTERVAL == 0) {
+            scheduleSyncPlan(event.getServer(), serverTick % PERIODIC_SYNC_INTERVAL == 0);
         }
 
-        if (serverTick % FAST_SYNC_INTERVAL == 0) {
-            performFastSync();
+        outboundQueue.flush(serverTick);
+
+        GeaProfiler.pop(profiler);
+        lastSyncNanos = System.nanoTime() - startNanos;
+        GeaTimeline.endTick(serverTick, serverEatingStates.size(), lastSyncNanos);
+
+        if (benchmark != null) {
+            benchmark.endTick();
         }
     }
 
     @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        // Logout events don't cover every player on shutdown, and in singleplayer these handlers outlive the
+        // server: anything left would keep the old level reachable and be replayed into the next world.
+        pendingSyncPlan = null;
+        serverEatingStates.clear();
+        stateChanges.clear();
+        newPlayerConnections.clear();
+        outboundQueue.clear();
+    }
+
+    // Lowest priority so the duration includes changes made by other mods' handlers.
+    @SubscribeEvent(priority = EventPriority.LOWEST)
     public static void onItemUseStart(LivingEntityUseItemEvent.Start event) {
         if (!(event.getEntity() instanceof ServerPlayer)) {
             return;
@@ -81,15 +135,29 @@ public class ServerEventHandler {
             return;
         }
 
+        // Resolved once here; observers get the variant id and never look at the eater's stack.
+        int variant = AnimationVariantResolver.resolve(itemStack, itemId);
+        if (EatingAnimationConfig.getAnimationKey(itemId, variant) == null) {
+            return;
+        }
+
         int currentTick = player.tickCount;
-        EatingState state = new EatingState(itemId.toString(), itemStack.getUseDuration(), currentTick, serverTick);
+        int duration = event.getDuration();
+        EatingState state = new EatingState(itemId.toString(), variant, duration, currentTick, serverTick);
         serverEatingStates.put(player, state);
-
-        broadcastEatingAnimation(player, itemId.toString(), itemStack.getUseDuration(), true, currentTick);
-
-        GrapesEatingAnimation.LOGGER.debug("GEA: Player {} started eating {} at server tick {} (broadcast to {} players)",
-                player.getName().getString(), itemId, currentTick,
-                getNearbyPlayers(player, SYNC_DISTANCE).size());
+        markStateChanged(player, false);
+
+        // The eater predicts its own animation from the item's duration; only tell it when the server disagrees.
+        if (duration != itemStack.getUseDuration()) {
+            NetworkHandler.DurationCorrectionPacket correction = new NetworkHandler.DurationCorrectionPacket(itemStack.getItem(), duration);
+            // Not budgeted: it goes only to the eater, at most once per use, is a few bytes, and is only useful
+            // before the eater's own prediction has run for long, so it must not wait behind other eaters.
+            NetworkHandler.INSTANCE.send(PacketDistributor.PLAYER.with(() -> player), correction);
+            if (GeaTimeline.isRecording()) {
+                GeaTimeline.recordPacket(correction.encodedSize());
+            }
+            GeaDiagnostics.record(GeaDiagnostics.Event.SERVER_DURATION_CORRECTION, player.getId(), itemStack.getUseDuration(), duration, state.itemId);
+        }
     }
 
     @SubscribeEvent
@@ -112,13 +180,83 @@ public class ServerEventHandler {
         stopEatingAnimation(player);
     }
 
+    // Observers only hear about an eater's state once per tick, after all of the tick's starts and stops:
+    // a start and stop that cancel out send nothing, and a stop followed by a start is sent as one eating packet
+    // for the new item, which replaces the old animation on the client. Stops are always held for
+    // STATE_CHANGE_WINDOW ticks so the next food can merge with them; observers stop drawing the animation as soon
+    // as vanilla's use-item flag clears, so the hold isn't visible. After any broadcast the eater's next change
+    // waits out the same window, which caps a right-click spammer at one state change per window.
+    static void flushStateChanges() {
+        if (stateChanges.isEmpty()) {
+            return;
+        }
+
+        stateChanges.entrySet().removeIf(entry -> {
+            StateChanges changes = entry.getValue();
+            if (changes.pending > 0 && serverTick >= changes.nextFlushTick) {
+                flushStateChange(entry.getKey(), changes);
+            }
+            return changes.pending == 0 && changes.broadcastState == null && serverTick >= changes.nextFlushTick;
+        });
+    }
+
+    private static void markStateChanged(ServerPlayer player, boolean stopped) {
+        StateChanges changes = stateChanges.computeIfAbsent(player, key -> new StateChanges());
+        changes.pending++;
+        if (stopped) {
+            changes.nextFlushTick = Math.max(changes.nextFlushTick, serverTick + STATE_CHANGE_WINDOW);
+        }
+    }
+
+    private static void flushStateChange(ServerPlayer eater, StateChanges changes) {
+        EatingState previous = changes.broadcastState;
+        EatingState current = serverEatingStates.get(eater);
+        int pending = changes.pending;
+        changes.pending = 0;
+
+        if (current == previous) {
+            coalescedStateChanges += pending;
+            GeaDiagnostics.record(GeaDiagnostics.Event.SERVER_STATE_COALESCED, eater.getId(), pending, 0, null);
+            return;
+        }
+
+        changes.broadcastState = current;
+        changes.nextFlushTick = serverTick + STATE_CHANGE_WINDOW;
+        coalescedStateChanges += pending - 1;
+
+        if (current == null) {
+            broadcastStop(eater);
+        } else {
+            broadcastStart(eater, current, previous != null ? "switch" : "start");
+        }
+    }
+
+    private static void broadcastStart(ServerPlayer player, EatingState state, String kind) {
+        int recipients = broadcastEatingAnimation(player, state.itemId, state.variant, state.duration, true, state.startTick, kind);
+        GeaDiagnostics.Event diagnosticEvent = "switch".equals(kind) ?
+                GeaDiagnostics.Event.SERVER_EAT_SWITCH : GeaDiagnostics.Event.SERVER_EAT_START;
+        GeaDiagnostics.record(diagnosticEvent, player.getId(), state.duration, recipients, state.itemId);
+
+        GeaJfrEvents.AnimationStart startEvent = new GeaJfrEvents.AnimationStart();
+        if (startEvent.shouldCommit()) {
+            startEvent.entityId = player.getId();
+            startEvent.item = state.itemId;
+            startEvent.useDuration = state.duration;
+            startEvent.recipients = recipients;
+            startEvent.commit();
+        }
+    }
+
     @SubscribeEvent
     public static void onPlayerTick(TickEvent.PlayerTickEvent event) {
         if (event.phase != TickEvent.Phase.END || !(event.player instanceof ServerPlayer)) {
             return;
         }
 
-        ServerPlayer player = (ServerPlayer) event.player;
+        tickEatingState((ServerPlayer) event.player);
+    }
+
+    static void tickEatingState(ServerPlayer player) {
         EatingState state = serverEatingStates.get(player);
 
         if (state != null) {
@@ -151,17 +289,35 @@ public class ServerEventHandler {
         if (event.getEntity() instanceof ServerPlayer) {
             ServerPlayer player = (ServerPlayer) event.getEntity();
             serverEatingStates.remove(player);
+            stateChanges.remove(player);
             newPlayerConnections.remove(player);
+            outboundQueue.forgetRecipient(player);
+            outboundQueue.forgetEater(player.getId());
+            AnimationTableSync.forgetPlayer(player);
             GrapesEatingAnimation.LOGGER.debug("GEA: Cleaned up server eating state for disconnected player");
         }
     }
 
+    // Respawning replaces the ServerPlayer instance; drop anything still keyed by the old one.
+    @SubscribeEvent
+    public static void onPlayerClone(PlayerEvent.Clone event) {
+        if (event.getOriginal() instanceof ServerPlayer original) {
+            serverEatingStates.remove(original);
+            stateChanges.remove(original);
+            newPlayerConnections.remove(original);
+            outboundQueue.forgetRecipient(original);
+            // The new instance keeps the entity id; anything still queued about it describes the old one.
+            outboundQueue.forgetEater(original.getId());
+        }
+    }
+
     @SubscribeEvent
     public static void onPlayerRespawn(PlayerEvent.PlayerRespawnEvent event) {
         if (event.getEntity() instanceof ServerPlayer) {
             ServerPlayer player = (ServerPlayer) event.getEntity();
 
             serverEatingStates.remove(player);
+            stateChanges.remove(player);
             newPlayerConnections.put(player, serverTick);
 
             GrapesEatingAnimation.LOGGER.debug("GEA: Scheduled delayed sync for respawned player");
@@ -174,6 +330,7 @@ public class ServerEventHandler {
             ServerPlayer player = (ServerPlayer) event.getEntity();
 
             newPlayerConnections.put(player, serverTick);
+            AnimationTableSync.sendTableHash(player);
 
             GrapesEatingAnimation.LOGGER.debug("GEA: Scheduled delayed sync for newly connected player");
         }
@@ -204,44 +361,129 @@ public class ServerEventHandler {
         }
     }
 
-    private static void performPeriodicSync() {
-        if (serverEatingStates.isEmpty()) {
+    // Periodic and fast syncs are planned off the server thread: scheduleSyncPlan copies positions and eating
+    // states at the end of a tick, SyncPlanner works out recipients on a background worker, and the next tick's
+    // dispatchSyncPlan only checks that nothing changed and sends. A plan that isn't ready yet is picked up by a
+    // later tick, and no new one is scheduled meanwhile.
+    private static void scheduleSyncPlan(MinecraftServer server, boolean periodic) {
+        if (pendingSyncPlan != null || serverEatingStates.isEmpty()) {
             return;
         }
 
-        int syncedAnimations = 0;
-        for (ServerPlayer eatingPlayer : serverEatingStates.keySet()) {
-            EatingState state = serverEatingStates.get(eatingPlayer);
-            if (state != null && eatingPlayer.isUsingItem()) {
-                syncEatingStateToNearbyPlayers(eatingPlayer, state);
-                syncedAnimations++;
-            }
+        SyncSnapshot snapshot = takeSyncSnapshot(server, periodic);
+        if (snapshot.eaterCount > 0) {
+            pendingSyncPlan = CompletableFuture.supplyAsync(() -> planSync(snapshot), Util.backgroundExecutor());
+        }
+    }
+
+    private static void dispatchReadySyncPlan() {
+        CompletableFuture<SyncPlan> planned = pendingSyncPlan;
+        if (planned == null || !planned.isDone()) {
+            return;
         }
 
-        if (syncedAnimations > 0) {
-            GrapesEatingAnimation.LOGGER.debug("GEA: Periodic sync completed for {} eating animations", syncedAnimations);
+        pendingSyncPlan = null;
+        try {
+            dispatchSyncPlan(planned.join());
+        } catch (CompletionException e) {
+            GrapesEatingAnimation.LOGGER.error("GEA: Sync planning failed", e.getCause());
         }
     }
 
-    private static void performFastSync() {
-        if (serverEatingStates.isEmpty()) {
-            return;
+    // On periodic ticks every eater is synced once; otherwise only animations young enough for fast sync.
+    private static SyncSnapshot takeSyncSnapshot(MinecraftServer server, boolean periodic) {
+        List<ServerPlayer> players = server.getPlayerList().getPlayers();
+        SyncSnapshot snapshot = new SyncSnapshot(players.size(), serverEatingStates.size(), periodic);
+        Map<ServerPlayer, Integer> playerIndices = new IdentityHashMap<>();
+        Map<Level, Integer> levelIndices = new IdentityHashMap<>();
+
+        for (ServerPlayer player : players) {
+            playerIndices.put(player, snapshot.positionCount);
+            snapshot.addPosition(player, levelIndices);
         }
+        snapshot.recipientCount = snapshot.positionCount;
 
-        int fastSyncCount = 0;
-        for (ServerPlayer eatingPlayer : serverEatingStates.keySet()) {
-            EatingState state = serverEatingStates.get(eatingPlayer);
-            if (state != null && eatingPlayer.isUsingItem()) {
-                int animationAge = serverTick - state.creationServerTick;
-                if (animationAge <= FAST_SYNC_DURATION) {
-                    syncEatingStateToNearbyPlayers(eatingPlayer, state);
-                    fastSyncCount++;
+        for (Map.Entry<ServerPlayer, EatingState> entry : serverEatingStates.entrySet()) {
+            ServerPlayer eatingPlayer = entry.getKey();
+            EatingState state = entry.getValue();
+            if (!eatingPlayer.isUsingItem() || !isBroadcast(eatingPlayer, state)) {
+                continue;
+            }
+            if (!periodic && serverTick - state.creationServerTick > FAST_SYNC_DURATION) {
+                continue;
+            }
+
+            if (snapshot.eaterCount == snapshot.eaters.length) {
+                break;
+            }
+
+            Integer index = playerIndices.get(eatingPlayer);
+            if (index == null) {
+                // Not in the player list (fake players), so it can eat but never receives anything.
+                index = snapshot.positionCount;
+                snapshot.addPosition(eatingPlayer, levelIndices);
+            }
+            snapshot.addEater(index, state);
+        }
+        return snapshot;
+    }
+
+    private static SyncPlan planSync(SyncSnapshot snapshot) {
+        int[][] recipients = SyncPlanner.plan(snapshot.levels, snapshot.xs, snapshot.ys, snapshot.zs, snapshot.recipientCount,
+                snapshot.eaters, snapshot.eaterCount, SYNC_DISTANCE);
+        return new SyncPlan(snapshot, recipients);
+    }
+
+    // Packets are built here rather than in the plan so their send tick is the tick they actually leave on.
+    private static void dispatchSyncPlan(SyncPlan plan) {
+        SyncSnapshot snapshot = plan.snapshot;
+        int periodicCount = 0;
+        int fastCount = 0;
+
+        for (int i = 0; i < snapshot.eaterCount; i++) {
+            ServerPlayer eatingPlayer = snapshot.players[snapshot.eaters[i]];
+            EatingState state = snapshot.states[i];
+            if (serverEatingStates.get(eatingPlayer) != state || !isBroadcast(eatingPlayer, state) || !eatingPlayer.isUsingItem()) {
+                continue;
+            }
+
+            int[] recipients = plan.recipients[i];
+            if (recipients.length == 0) {
+                continue;
+            }
+
+            NetworkHandler.EatingAnimationPacket packet = new NetworkHandler.EatingAnimationPacket(
+                    eatingPlayer.getId(),
+                    state.itemId,
+                    state.variant,
+                    state.duration,
+                    true,
+                    state.startTick,
+                    eatingPlayer.tickCount
+            );
+
+            int sent = 0;
+            for (int recipient : recipients) {
+                ServerPlayer recipientPlayer = snapshot.players[recipient];
+                if (!recipientPlayer.hasDisconnected()) {
+                    packetSink.send(recipientPlayer, packet);
+                    sent++;
                 }
             }
+
+            recordBroadcast(snapshot.periodic ? "periodic sync" : "fast sync", eatingPlayer.getId(), sent);
+            if (snapshot.periodic) {
+                periodicCount++;
+            } else {
+                fastCount++;
+            }
         }
 
-        if (fastSyncCount > 0) {
-            GrapesEatingAnimation.LOGGER.debug("GEA: Fast sync completed for {} recent animations", fastSyncCount);
+        if (periodicCount > 0) {
+            GeaDiagnostics.record(GeaDiagnostics.Event.SERVER_SYNC, periodicCount, "periodic");
+        }
+        if (fastCount > 0) {
+            GeaDiagnostics.record(GeaDiagnostics.Event.SERVER_SYNC, fastCount, "fast");
         }
     }
 
@@ -254,72 +496,68 @@ public class ServerEventHandler {
             }
 
             EatingState state = serverEatingStates.get(eatingPlayer);
-            if (state != null && eatingPlayer.isUsingItem()) {
+            if (state != null && eatingPlayer.isUsingItem() && isBroadcast(eatingPlayer, state)) {
                 if (arePlayersInSyncRange(eatingPlayer, targetPlayer)) {
                     NetworkHandler.EatingAnimationPacket packet = new NetworkHandler.EatingAnimationPacket(
                             eatingPlayer.getId(),
                             state.itemId,
+                            state.variant,
                             state.duration,
                             true,
-                            state.startTick
+                            state.startTick,
+                            eatingPlayer.tickCount
                     );
 
-                    NetworkHandler.INSTANCE.send(
-                            PacketDistributor.PLAYER.with(() -> targetPlayer),
-                            packet
-                    );
+                    packetSink.send(targetPlayer, packet);
+                    recordBroadcast("join sync", eatingPlayer.getId(), 1);
                     syncedCount++;
                 }
             }
         }
 
         if (syncedCount > 0) {
-            GrapesEatingAnimation.LOGGER.debug("GEA: Synced {} eating animations to newly connected player {}",
-                    syncedCount, targetPlayer.getName().getString());
+            GeaDiagnostics.record(GeaDiagnostics.Event.SERVER_JOIN_SYNC, targetPlayer.getId(), syncedCount, 0, null);
         }
     }
 
-    private static void syncEatingStateToNearbyPlayers(ServerPlayer eatingPlayer, EatingState state) {
-        List<ServerPlayer> nearbyPlayers = getNearbyPlayers(eatingPlayer, SYNC_DISTANCE);
-
-        if (nearbyPlayers.isEmpty()) {
-            return;
-        }
-
-        NetworkHandler.EatingAnimationPacket packet = new NetworkHandler.EatingAnimationPacket(
-                eatingPlayer.getId(),
-                state.itemId,
-                state.duration,
-                true,
-                state.startTick
-        );
-
-        for (ServerPlayer nearbyPlayer : nearbyPlayers) {
-            if (nearbyPlayer != eatingPlayer) {
-                NetworkHandler.INSTANCE.send(
-                        PacketDistributor.PLAYER.with(() -> nearbyPlayer),
-                        packet
-                );
-            }
-        }
+    // Syncs repeat what observers were already told; a state still waiting in flushStateChanges isn't theirs yet.
+    private static boolean isBroadcast(ServerPlayer eatingPlayer, EatingState state) {
+        StateChanges changes = stateChanges.get(eatingPlayer);
+        return changes != null && changes.broadcastState == state;
     }
 
-    private static void broadcastEatingAnimation(ServerPlayer eatingPlayer, String itemId, int duration, boolean isEating, int startTick) {
+    private static int broadcastEatingAnimation(ServerPlayer eatingPlayer, String itemId, int variant, int duration, boolean isEating, int startTick, String kind) {
         List<ServerPlayer> nearbyPlayers = getNearbyPlayers(eatingPlayer, SYNC_DISTANCE);
 
         NetworkHandler.EatingAnimationPacket packet = new NetworkHandler.EatingAnimationPacket(
                 eatingPlayer.getId(),
                 itemId,
+                variant,
                 duration,
                 isEating,
-                startTick
+                startTick,
+                eatingPlayer.tickCount
         );
 
         for (ServerPlayer player : nearbyPlayers) {
-            NetworkHandler.INSTANCE.send(
-                    PacketDistributor.PLAYER.with(() -> player),
-                    packet
-            );
+            packetSink.send(player, packet);
+        }
+        recordBroadcast(kind, eatingPlayer.getId(), nearbyPlayers.size());
+        return nearbyPlayers.size();
+    }
+
+    private static void recordBroadcast(String kind, int entityId, int recipients) {
+        // Only the decision is recorded here; what reaches the network is counted when the outbound queue flushes.
+        if (GeaTimeline.isRecording()) {
+            GeaTimeline.recordBroadcast(recipients);
+        }
+
+        GeaJfrEvents.Broadcast event = new GeaJfrEvents.Broadcast();
+        if (event.shouldCommit()) {
+            event.kind = kind;
+            event.entityId = entityId;
+            event.recipients = recipients;
+            event.commit();
         }
     }
 
@@ -327,20 +565,24 @@ public class ServerEventHandler {
         List<ServerPlayer> nearbyPlayers = new ArrayList<>();
 
         if (centerPlayer.level() instanceof ServerLevel serverLevel) {
+            ProfilerFiller profiler = serverLevel.getProfiler();
+            GeaProfiler.push(profiler, GeaProfiler.NEARBY_PLAYERS);
+            long startNanos = GeaTimeline.isRecording() ? System.nanoTime() : 0;
             Vec3 centerPos = centerPlayer.position();
 
             for (ServerPlayer player : serverLevel.getServer().getPlayerList().getPlayers()) {
-                if (player.level() == serverLevel) {
-                    if (player == centerPlayer) {
+                // The center player predicts its own animation, so it never receives its own state.
+                if (player.level() == serverLevel && player != centerPlayer) {
+                    double distance = player.position().distanceTo(centerPos);
+                    if (distance <= maxDistance) {
                         nearbyPlayers.add(player);
-                    } else {
-                        double distance = player.position().distanceTo(centerPos);
-                        if (distance <= maxDistance) {
-                            nearbyPlayers.add(player);
-                        }
                     }
                 }
             }
+            if (startNanos != 0) {
+                GeaTimeline.addNearbyNanos(System.nanoTime() - startNanos);
+            }
+            GeaProfiler.pop(profiler);
         }
 
         return nearbyPlayers;
@@ -356,34 +598,73 @@ public class ServerEventHandler {
     }
 
     private static void stopEatingAnimation(ServerPlayer player) {
-        EatingState state = serverEatingStates.remove(player);
-        if (state != null) {
-            List<ServerPlayer> nearbyPlayers = getNearbyPlayers(player, SYNC_DISTANCE);
+        if (serverEatingStates.remove(player) != null) {
+            markStateChanged(player, true);
+        }
+    }
 
-            NetworkHandler.EatingAnimationPacket packet = new NetworkHandler.EatingAnimationPacket(
-                    player.getId(),
-                    null,
-                    0,
-                    false,
-                    0
-            );
+    private static void broadcastStop(ServerPlayer player) {
+        List<ServerPlayer> nearbyPlayers = getNearbyPlayers(player, SYNC_DISTANCE);
 
-            for (ServerPlayer nearbyPlayer : nearbyPlayers) {
-                NetworkHandler.INSTANCE.send(
-                        PacketDistributor.PLAYER.with(() -> nearbyPlayer),
-                        packet
-                );
-            }
+        NetworkHandler.EatingAnimationPacket packet = new NetworkHandler.EatingAnimationPacket(
+                player.getId(),
+                null,
+                0,
+                0,
+                false,
+                0,
+                player.tickCount
+        );
+
+        for (ServerPlayer nearbyPlayer : nearbyPlayers) {
+            packetSink.send(nearbyPlayer, packet);
+        }
 
-            GrapesEatingAnimation.LOGGER.debug("GEA: Player {} stopped eating (broadcast to {} players)",
-                    player.getName().getString(), nearbyPlayers.size());
+        GeaDiagnostics.record(GeaDiagnostics.Event.SERVER_EAT_STOP, player.getId(), nearbyPlayers.size(), 0, null);
+        recordBroadcast("stop", player.getId(), nearbyPlayers.size());
+
+        GeaJfrEvents.AnimationStop stopEvent = new GeaJfrEvents.AnimationStop();
+        if (stopEvent.shouldCommit()) {
+            stopEvent.entityId = player.getId();
+            stopEvent.recipients = nearbyPlayers.size();
+            stopEvent.commit();
         }
     }
 
+    static PacketSink setPacketSink(PacketSink sink) {
+        PacketSink previous = packetSink;
+        packetSink = sink;
+        return previous;
+    }
+
+    static boolean isTrackingEater(ServerPlayer player) {
+        return serverEatingStates.containsKey(player);
+    }
+
+    static void forgetEater(ServerPlayer player) {
+        serverEatingStates.remove(player);
+        stateChanges.remove(player);
+    }
+
+    static boolean isAwaitingInitialSync(ServerPlayer player) {
+        return newPlayerConnections.containsKey(player);
+    }
+
+    static long getLastSyncNanos() {
+        return lastSyncNanos;
+    }
 
     public static String getDebugInfo() {
-        return String.format("ServerEventHandler{activeAnimations=%d, newConnections=%d, serverTick=%d, syncRange=%.1f}",
-                serverEatingStates.size(), newPlayerConnections.size(), serverTick, SYNC_DISTANCE);
+        return String.format("ServerEventHandler{activeAnimations=%d, newConnections=%d, pendingStateChanges=%d, coalescedStateChanges=%d, " +
+                        "queuedPackets=%d, queuedBytes=%d, supersededPackets=%d, deferredPackets=%d, expiredPackets=%d, congestedTicks=%d, serverTick=%d, syncRange=%.1f}",
+                serverEatingStates.size(), newPlayerConnections.size(), stateChanges.size(), coalescedStateChanges,
+                outboundQueue.getQueuedPacketCount(), outboundQueue.getQueuedBytes(), outboundQueue.getSupersededPackets(),
+                outboundQueue.getDeferredPackets(), outboundQueue.getExpiredPackets(), outboundQueue.getCongestedTicks(),
+                serverTick, SYNC_DISTANCE);
+    }
+
+    public static long getCoalescedStateChangeCount() {
+        return coalescedStateChanges;
     }
 
     public static int getActiveAnimationCount() {
@@ -391,21 +672,85 @@ public class ServerEventHandler {
     }
 
     public static void forceSync() {
-        performPeriodicSync();
+        MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+        if (server != null) {
+            dispatchSyncPlan(planSync(takeSyncSnapshot(server, true)));
+        }
         GrapesEatingAnimation.LOGGER.info("GEA: Forced synchronization completed");
     }
 
     private static class EatingState {
         final String itemId;
+        final int variant;
         final int duration;
         final int startTick;
         final int creationServerTick;
 
-        EatingState(String itemId, int duration, int startTick, int creationServerTick) {
+        EatingState(String itemId, int variant, int duration, int startTick, int creationServerTick) {
             this.itemId = itemId;
+            this.variant = variant;
             this.duration = duration;
             this.startTick = startTick;
             this.creationServerTick = creationServerTick;
         }
     }
+
+    // Everything sync planning reads, copied on the server thread. The planner only sees the primitive arrays;
+    // the player and state references are just handed back to dispatchSyncPlan.
+    private static final class SyncSnapshot {
+        final boolean periodic;
+        final ServerPlayer[] players;
+        final int[] levels;
+        final double[] xs;
+        final double[] ys;
+        final double[] zs;
+        int positionCount;
+        int recipientCount;
+        final int[] eaters;
+        final EatingState[] states;
+        int eaterCount;
+
+        SyncSnapshot(int playerCount, int eaterCapacity, boolean periodic) {
+            this.periodic = periodic;
+            int positionCapacity = playerCount + eaterCapacity;
+            this.players = new ServerPlayer[positionCapacity];
+            this.levels = new int[positionCapacity];
+            this.xs = new double[positionCapacity];
+            this.ys = new double[positionCapacity];
+            this.zs = new double[positionCapacity];
+            this.eaters = new int[eaterCapacity];
+            this.states = new EatingState[eaterCapacity];
+        }
+
+        void addPosition(ServerPlayer player, Map<Level, Integer> levelIndices) {
+            int index = positionCount++;
+            players[index] = player;
+            levels[index] = levelIndices.computeIfAbsent(player.level(), level -> levelIndices.size());
+            xs[index] = player.getX();
+            ys[index] = player.getY();
+            zs[index] = player.getZ();
+        }
+
+        void addEater(int positionIndex, EatingState state) {
+            eaters[eaterCount] = positionIndex;
+            states[eaterCount] = state;
+            eaterCount++;
+        }
+    }
+
+    private static final class SyncPlan {
+        final SyncSnapshot snapshot;
+        final int[][] recipients;
+
+        SyncPlan(SyncSnapshot snapshot, int[][] recipients) {
+            this.snapshot = snapshot;
+            this.recipients = recipients;
+        }
+    }
+
+    private static class StateChanges {
+        EatingState broadcastState; // null once observers were told the eater stopped
+        int pending;
+        int nextFlushTick;
+    }
 }